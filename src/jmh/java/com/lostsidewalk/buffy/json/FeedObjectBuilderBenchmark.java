@@ -0,0 +1,45 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering of the feed object (the channel-level header of a feed).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FeedObjectBuilderBenchmark {
+
+    private FeedObjectBuilder feedObjectBuilder;
+
+    private QueueDefinition queueDefinition;
+
+    private Date pubDate;
+
+    @Setup
+    public void setup() {
+        JSONPublisherConfigProps configProps = new JSONPublisherConfigProps();
+        configProps.setChannelLinkTemplate("https://localhost/json/%s");
+        configProps.setChannelImageUrlTemplate("https://localhost/img/%s");
+        feedObjectBuilder = new FeedObjectBuilder(configProps);
+        queueDefinition = SyntheticFeeds.queueDefinition(1L);
+        pubDate = new Date();
+    }
+
+    @Benchmark
+    public void buildFeedObject(Blackhole blackhole) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        feedObjectBuilder.writeFeedObject(writer, queueDefinition, pubDate);
+        writer.flush();
+        blackhole.consume(stringWriter.toString());
+    }
+}
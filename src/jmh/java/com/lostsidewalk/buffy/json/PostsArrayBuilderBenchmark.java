@@ -0,0 +1,57 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.lostsidewalk.buffy.post.StagingPost;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering of the posts array, with the post fragment cache disabled (every post rendered from scratch)
+ * and enabled (a republish of an unchanged queue).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PostsArrayBuilderBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    int postCount;
+
+    @Param({"SMALL", "MEDIA_HEAVY", "ITUNES_HEAVY"})
+    SyntheticFeeds.Shape shape;
+
+    @Param({"0", "100000"})
+    int postCacheMaxSize;
+
+    private PostsArrayBuilder postsArrayBuilder;
+
+    private List<StagingPost> stagingPosts;
+
+    @Setup
+    public void setup() throws IOException {
+        JSONPublisherConfigProps configProps = new JSONPublisherConfigProps();
+        configProps.setPostCacheMaxSize(postCacheMaxSize);
+        postsArrayBuilder = new PostsArrayBuilder(configProps);
+        stagingPosts = SyntheticFeeds.stagingPosts(1L, postCount, shape);
+        // prime the fragment cache, if enabled
+        writePostsArray();
+    }
+
+    @Benchmark
+    public void buildPostsArray(Blackhole blackhole) throws IOException {
+        blackhole.consume(writePostsArray());
+    }
+
+    private String writePostsArray() throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        postsArrayBuilder.writePostsArray(writer, stagingPosts, RenderBudget.unlimited(), PostProjection.FULL);
+        writer.flush();
+        return stringWriter.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end rendering of a feed document, i.e., everything publishFeed does short of the storage write.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RenderFeedBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    int postCount;
+
+    @Param({"SMALL", "MEDIA_HEAVY", "ITUNES_HEAVY"})
+    SyntheticFeeds.Shape shape;
+
+    private JSONPublisher jsonPublisher;
+
+    private QueueDefinition queueDefinition;
+
+    private List<StagingPost> stagingPosts;
+
+    @Setup
+    public void setup() {
+        JSONPublisherConfigProps configProps = new JSONPublisherConfigProps();
+        configProps.setChannelLinkTemplate("https://localhost/json/%s");
+        configProps.setChannelImageUrlTemplate("https://localhost/img/%s");
+        jsonPublisher = new JSONPublisher();
+        jsonPublisher.configProps = configProps;
+        jsonPublisher.feedObjectBuilder = new FeedObjectBuilder(configProps);
+        jsonPublisher.postsArrayBuilder = new PostsArrayBuilder(configProps);
+        jsonPublisher.publisherMetrics = new PublisherMetrics(null, JSONPublisher.JSON_PUBLISHER_ID);
+        queueDefinition = SyntheticFeeds.queueDefinition(1L);
+        stagingPosts = SyntheticFeeds.stagingPosts(1L, postCount, shape);
+    }
+
+    @Benchmark
+    public void renderFeed(Blackhole blackhole) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        jsonPublisher.renderFeed(queueDefinition, stagingPosts, new Date(), stringWriter);
+        blackhole.consume(stringWriter.toString());
+    }
+}
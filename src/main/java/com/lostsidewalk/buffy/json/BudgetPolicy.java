@@ -0,0 +1,20 @@
+package com.lostsidewalk.buffy.json;
+
+/**
+ * What a rendering does once a post would exceed its post or byte budget.
+ */
+enum BudgetPolicy {
+    /**
+     * Leave out the post and all remaining posts, and mark the document as truncated.
+     */
+    TRUNCATE,
+    /**
+     * Render the post without its heavy field groups (contents, media, iTunes, enclosures) if that makes it fit;
+     * otherwise truncate.
+     */
+    DROP_HEAVY_FIELDS,
+    /**
+     * Abandon the rendering with a {@link RenderBudgetExceededException}.
+     */
+    FAIL
+}
@@ -0,0 +1,289 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * A {@link JsonWriter} that encodes the document model as CBOR (RFC 8949) rather than JSON text, so that the feed
+ * and post builders can render either format.  Arrays and objects are written with indefinite lengths, so the
+ * output is streamed without knowing element counts up front.  Raw JSON passed to {@link #jsonValue(String)}
+ * (such as cached fragments) is transcoded.  Names, null handling and numbers follow the JsonWriter contract.
+ */
+class CborWriter extends JsonWriter {
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_TEXT = 3;
+    private static final int INDEFINITE_ARRAY = 0x9f;
+    private static final int INDEFINITE_MAP = 0xbf;
+    private static final int BREAK = 0xff;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int FLOAT64 = 0xfb;
+
+    //
+    // the JsonWriter superclass requires a character sink; all output goes to the byte stream instead
+    //
+    private static final Writer UNUSED_WRITER = new Writer() {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            throw new UnsupportedOperationException("CborWriter does not write text");
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final OutputStream out;
+
+    private String deferredName;
+
+    CborWriter(OutputStream out) {
+        super(UNUSED_WRITER);
+        this.out = out;
+    }
+
+    /**
+     * Transcodes a JSON document to CBOR.
+     */
+    static byte[] transcode(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() >> 1);
+        CborWriter writer = new CborWriter(bytes);
+        writer.jsonValue(json);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        out.write(INDEFINITE_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        out.write(BREAK);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        out.write(INDEFINITE_MAP);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        out.write(BREAK);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        if (deferredName != null) {
+            throw new IllegalStateException("Already wrote a name, expecting a value.");
+        }
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        writeText(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(value))) {
+            reader.setLenient(true);
+            transcode(reader);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null) {
+            if (!getSerializeNulls()) {
+                // skip the name and the value
+                deferredName = null;
+                return this;
+            }
+            writeDeferredName();
+        }
+        out.write(NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        out.write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        return value((double) value);
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        writeDeferredName();
+        out.write(FLOAT64);
+        writeLong(Double.doubleToLongBits(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        if (value >= 0L) {
+            writeHead(MAJOR_UNSIGNED, value);
+        } else {
+            writeHead(MAJOR_NEGATIVE, -1L - value);
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(value.doubleValue());
+        }
+        return writeNumber(value.toString());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void transcode(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_ARRAY -> {
+                reader.beginArray();
+                beginArray();
+                while (reader.hasNext()) {
+                    transcode(reader);
+                }
+                reader.endArray();
+                endArray();
+            }
+            case BEGIN_OBJECT -> {
+                reader.beginObject();
+                beginObject();
+                while (reader.hasNext()) {
+                    name(reader.nextName());
+                    transcode(reader);
+                }
+                reader.endObject();
+                endObject();
+            }
+            case STRING -> value(reader.nextString());
+            case NUMBER -> writeNumber(reader.nextString());
+            case BOOLEAN -> value(reader.nextBoolean());
+            case NULL -> {
+                reader.nextNull();
+                nullValue();
+            }
+            default -> throw new IllegalStateException("Unexpected JSON token: " + reader.peek());
+        }
+    }
+
+    //
+    // integral literals that fit a long are encoded as integers, anything else as a double
+    //
+    private JsonWriter writeNumber(String literal) throws IOException {
+        try {
+            return value(Long.parseLong(literal));
+        } catch (NumberFormatException e) {
+            return value(Double.parseDouble(literal));
+        }
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (deferredName != null) {
+            writeText(deferredName);
+            deferredName = null;
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        byte[] utf8 = text.getBytes(UTF_8);
+        writeHead(MAJOR_TEXT, utf8.length);
+        out.write(utf8);
+    }
+
+    private void writeHead(int majorType, long value) throws IOException {
+        int major = majorType << 5;
+        if (value < 24L) {
+            out.write(major | (int) value);
+        } else if (value < 0x100L) {
+            out.write(major | 24);
+            out.write((int) value);
+        } else if (value < 0x10000L) {
+            out.write(major | 25);
+            out.write((int) (value >> 8));
+            out.write((int) value);
+        } else if (value < 0x100000000L) {
+            out.write(major | 26);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out.write((int) (value >> shift));
+            }
+        } else {
+            out.write(major | 27);
+            writeLong(value);
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >> shift));
+        }
+    }
+}
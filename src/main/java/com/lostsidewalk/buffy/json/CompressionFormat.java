@@ -0,0 +1,20 @@
+package com.lostsidewalk.buffy.json;
+
+/**
+ * Compressed variants of a rendered feed that may be produced at publish time.  Each variant is stored at the
+ * transport ident of the plain payload with the variant's suffix appended.  As the feed store only accepts text,
+ * the compressed bytes are stored base64-encoded, and must be decoded by whatever serves them; no variants are
+ * produced unless formats are configured.
+ */
+enum CompressionFormat {
+
+    GZIP(".gz"),
+
+    DEFLATE(".deflate");
+
+    final String identSuffix;
+
+    CompressionFormat(String identSuffix) {
+        this.identSuffix = identSuffix;
+    }
+}
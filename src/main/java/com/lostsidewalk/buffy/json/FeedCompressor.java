@@ -0,0 +1,89 @@
+package com.lostsidewalk.buffy.json;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Produces the compressed variants of a rendered feed payload, using only the JDK's zlib support.
+ */
+@Slf4j
+class FeedCompressor {
+
+    private final int compressionLevel;
+
+    FeedCompressor(int compressionLevel) {
+        this.compressionLevel = checkCompressionLevel(compressionLevel);
+    }
+
+    /**
+     * Checks that the given level is a zlib compression level: 0 (none) to 9 (best), or -1 for zlib's default.
+     *
+     * @return The compression level.
+     * @throws IllegalArgumentException If the level is out of range.
+     */
+    static int checkCompressionLevel(int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel + ", expected -1 (default) or 0 to 9");
+        }
+        return compressionLevel;
+    }
+
+    final Map<CompressionFormat, byte[]> compress(String payload, Collection<CompressionFormat> formats) throws IOException {
+        Map<CompressionFormat, byte[]> variants = new EnumMap<>(CompressionFormat.class);
+        if (formats == null || formats.isEmpty()) {
+            return variants;
+        }
+        byte[] bytes = payload.getBytes(UTF_8);
+        for (CompressionFormat format : formats) {
+            variants.put(format, compress(bytes, format));
+        }
+        return variants;
+    }
+
+    private byte[] compress(byte[] bytes, CompressionFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length >> 2);
+        if (format == CompressionFormat.GZIP) {
+            try (OutputStream gzip = new LeveledGZIPOutputStream(out, compressionLevel)) {
+                gzip.write(bytes);
+            }
+        } else {
+            Deflater deflater = new Deflater(compressionLevel);
+            try (OutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+                deflate.write(bytes);
+            } finally {
+                deflater.end();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    //
+    // GZIPOutputStream only exposes its deflater to subclasses
+    //
+    private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+        private LeveledGZIPOutputStream(OutputStream out, int compressionLevel) throws IOException {
+            super(out);
+            def.setLevel(compressionLevel);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "FeedCompressor{" +
+                "compressionLevel=" + compressionLevel +
+                '}';
+    }
+}
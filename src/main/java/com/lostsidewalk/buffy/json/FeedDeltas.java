@@ -0,0 +1,208 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.System.currentTimeMillis;
+
+
+/**
+ * Tracks the posts added or updated by each publication of a feed, by post id and last-updated timestamp, in a
+ * bounded rolling window of versions per transport ident.  Versions are cursors that clients pass back to fetch
+ * the changes they have not seen yet; they are derived from the publication time and strictly increase across all
+ * feeds, so that cursors issued before a restart, or before a feed was forgotten, are never mistaken for later
+ * ones.  The first publication of a feed that this publisher sees only establishes the baseline; posts without an
+ * id are never part of a delta.
+ * <p>
+ * Only ids and timestamps are retained, never the posts themselves: a delta names the posts that changed in each
+ * version, and is rendered from the feed's current posts.  At most maxFeeds feeds are tracked; the least recently
+ * published feed is forgotten once that many are, and its next publication establishes a new baseline, whose
+ * version resets the clients of the feed.
+ */
+@Slf4j
+class FeedDeltas {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final int windowSize;
+
+    private final int maxFeeds;
+
+    private final Map<String, DeltaState> states;
+
+    private final AtomicLong latestVersion = new AtomicLong();
+
+    FeedDeltas(int windowSize, int maxFeeds) {
+        this.windowSize = windowSize;
+        this.maxFeeds = maxFeeds;
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DeltaState> eldest) {
+                return size() > FeedDeltas.this.maxFeeds;
+            }
+        };
+    }
+
+    final boolean isEnabled() {
+        return windowSize > 0 && maxFeeds > 0;
+    }
+
+    /**
+     * Records a publication of the given posts at the given transport ident.
+     *
+     * @return The delta covering the current window, or null if deltas are disabled.
+     */
+    final Delta record(String transportIdent, Iterable<? extends StagingPost> stagingPosts) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Snapshot snapshot = Snapshot.of(stagingPosts);
+        DeltaState state;
+        synchronized (states) {
+            state = states.computeIfAbsent(transportIdent, t -> new DeltaState());
+        }
+        synchronized (state) {
+            long[] changedPostIds = snapshot.changedSince(state.snapshot);
+            long version = latestVersion.accumulateAndGet(currentTimeMillis(), (latest, now) -> Math.max(latest + 1L, now));
+            if (state.latestVersion == 0L) {
+                // first sighting: the baseline
+                state.oldestVersion = version;
+                state.latestVersion = version;
+            } else if (changedPostIds.length > 0) {
+                state.versions.addFirst(new Version(version, changedPostIds));
+                state.latestVersion = version;
+                while (state.versions.size() > windowSize) {
+                    state.oldestVersion = state.versions.removeLast().version();
+                }
+                log.debug("Recorded delta version={} for transportIdent={}, changedPosts={}", version, transportIdent, changedPostIds.length);
+            }
+            state.snapshot = snapshot;
+            return state.since(state.oldestVersion);
+        }
+    }
+
+    /**
+     * Returns the changes to the feed at the given transport ident after the given cursor.
+     *
+     * @return The delta, flagged as a reset if the cursor precedes the window, or null if the feed is unknown.
+     */
+    final Delta since(String transportIdent, long cursor) {
+        DeltaState state;
+        synchronized (states) {
+            state = states.get(transportIdent);
+        }
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            return state.since(cursor);
+        }
+    }
+
+    //
+    // oldestVersion is the cursor that the oldest retained version follows; a client at any cursor from there on
+    // can be brought up to date from the window
+    //
+    private static final class DeltaState {
+
+        private final Deque<Version> versions = new ArrayDeque<>(4);
+
+        private Snapshot snapshot = Snapshot.EMPTY;
+
+        private long oldestVersion;
+
+        private long latestVersion;
+
+        private Delta since(long cursor) {
+            if (cursor < oldestVersion) {
+                return new Delta(latestVersion, oldestVersion, true, List.of());
+            }
+            List<Version> newer = new ArrayList<>(versions.size());
+            for (Version version : versions) {
+                if (version.version() <= cursor) {
+                    break;
+                }
+                newer.add(version);
+            }
+            return new Delta(latestVersion, oldestVersion, false, newer);
+        }
+    }
+
+    //
+    // the ids of the posts of one publication, sorted, with their last-updated times (NO_TIMESTAMP where there is
+    // none); a post id that occurs more than once keeps its first occurrence
+    //
+    private record Snapshot(long[] ids, long[] times) {
+
+        private static final Snapshot EMPTY = new Snapshot(NO_IDS, NO_IDS);
+
+        private static Snapshot of(Iterable<? extends StagingPost> stagingPosts) {
+            Map<Long, Long> times = new TreeMap<>();
+            for (StagingPost stagingPost : stagingPosts) {
+                Long id = stagingPost.getId();
+                if (id != null) {
+                    Date lastUpdatedTimestamp = stagingPost.getLastUpdatedTimestamp();
+                    times.putIfAbsent(id, lastUpdatedTimestamp == null ? NO_TIMESTAMP : lastUpdatedTimestamp.getTime());
+                }
+            }
+            long[] ids = new long[times.size()];
+            long[] lastUpdatedTimes = new long[times.size()];
+            int i = 0;
+            for (Map.Entry<Long, Long> e : times.entrySet()) {
+                ids[i] = e.getKey();
+                lastUpdatedTimes[i++] = e.getValue();
+            }
+            return new Snapshot(ids, lastUpdatedTimes);
+        }
+
+        //
+        // the ids of the posts that are new or have a different last-updated time than in the given snapshot, sorted
+        //
+        private long[] changedSince(Snapshot previous) {
+            long[] changed = new long[ids.length];
+            int changedCount = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int p = Arrays.binarySearch(previous.ids, ids[i]);
+                if (p < 0 || previous.times[p] != times[i]) {
+                    changed[changedCount++] = ids[i];
+                }
+            }
+            return changedCount == 0 ? NO_IDS : Arrays.copyOf(changed, changedCount);
+        }
+    }
+
+    /**
+     * The ids of the posts added or updated by one publication, sorted.
+     */
+    record Version(long version, long[] postIds) {
+
+        final boolean contains(long postId) {
+            return Arrays.binarySearch(postIds, postId) >= 0;
+        }
+    }
+
+    /**
+     * The versions after a cursor, newest first; a reset delta carries no versions, and its client must fetch the
+     * full feed.
+     */
+    record Delta(long cursor, long since, boolean reset, List<Version> versions) {
+    }
+
+    @Override
+    public final String toString() {
+        int feedCount;
+        synchronized (states) {
+            feedCount = states.size();
+        }
+        return "FeedDeltas{" +
+                "windowSize=" + windowSize +
+                ", maxFeeds=" + maxFeeds +
+                ", feedCount=" + feedCount +
+                '}';
+    }
+}
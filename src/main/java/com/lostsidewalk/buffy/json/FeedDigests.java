@@ -0,0 +1,128 @@
+package com.lostsidewalk.buffy.json;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Tracks a content digest of the last payload written at each transport ident.  The digest excludes the volatile
+ * feed-level pubDate, so two renderings of the same queue that differ only in their publication date produce the
+ * same digest.  The digest doubles as a strong ETag for the stored document.  At most maxSize transport idents are
+ * tracked; the least recently used one is forgotten once that many are, and its next write is never skipped.
+ */
+@Slf4j
+class FeedDigests {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final String FEED_OBJECT_PREFIX = "{\"feed\":{";
+
+    private static final String PUB_DATE_MARKER = "\"pubDate\":\"";
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final int maxSize;
+
+    private final Map<String, String> eTagsByTransportIdent;
+
+    FeedDigests(int maxSize) {
+        this.maxSize = maxSize;
+        this.eTagsByTransportIdent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > FeedDigests.this.maxSize;
+            }
+        };
+    }
+
+    final boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    final String getETag(String transportIdent) {
+        synchronized (eTagsByTransportIdent) {
+            return eTagsByTransportIdent.get(transportIdent);
+        }
+    }
+
+    final boolean isUnchanged(String transportIdent, String eTag) {
+        return eTag.equals(getETag(transportIdent));
+    }
+
+    final void recordPublished(String transportIdent, String eTag) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (eTagsByTransportIdent) {
+            eTagsByTransportIdent.put(transportIdent, eTag);
+        }
+    }
+
+    /**
+     * Forgets the digest of the document at the given transport ident, e.g. once it is no longer published.
+     */
+    final void forget(String transportIdent) {
+        synchronized (eTagsByTransportIdent) {
+            eTagsByTransportIdent.remove(transportIdent);
+        }
+    }
+
+    /**
+     * Computes the strong ETag of the given payload, skipping over the feed pubDate value if the payload
+     * starts with a feed object.
+     */
+    static String computeETag(String payload) {
+        MessageDigest digest = newDigest();
+        int length = payload.length();
+        int pubDateStart = payload.startsWith(FEED_OBJECT_PREFIX) ? payload.indexOf(PUB_DATE_MARKER) : -1;
+        if (pubDateStart < 0) {
+            update(digest, payload, 0, length);
+        } else {
+            // the formatted date never contains a quote, so the next quote closes the value
+            int pubDateEnd = payload.indexOf('"', pubDateStart + PUB_DATE_MARKER.length()) + 1;
+            update(digest, payload, 0, pubDateStart);
+            update(digest, payload, pubDateEnd, length);
+        }
+        return '"' + HexFormat.of().formatHex(digest.digest()) + '"';
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String payload, int start, int end) {
+        char[] chars = new char[CHUNK_SIZE];
+        byte[] bytes = new byte[CHUNK_SIZE << 1];
+        for (int offset = start; offset < end; offset += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, end - offset);
+            payload.getChars(offset, offset + count, chars, 0);
+            for (int i = 0; i < count; i++) {
+                bytes[i << 1] = (byte) (chars[i] >> 8);
+                bytes[(i << 1) + 1] = (byte) chars[i];
+            }
+            digest.update(bytes, 0, count << 1);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        int size;
+        synchronized (eTagsByTransportIdent) {
+            size = eTagsByTransportIdent.size();
+        }
+        return "FeedDigests{" +
+                "maxSize=" + maxSize +
+                ", size=" + size +
+                '}';
+    }
+}
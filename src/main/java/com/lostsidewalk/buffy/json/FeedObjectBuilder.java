@@ -1,12 +1,16 @@
 package com.lostsidewalk.buffy.json;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.lostsidewalk.buffy.queue.QueueDefinition;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.FastDateFormat;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.apache.commons.lang3.time.FastDateFormat.MEDIUM;
@@ -17,8 +21,19 @@ class FeedObjectBuilder {
 
     final JSONPublisherConfigProps configProps;
 
+    private final int headerCacheMaxSize;
+
+    private final Map<String, FeedHeader> headerCache;
+
     FeedObjectBuilder(JSONPublisherConfigProps configProps) {
         this.configProps = configProps;
+        this.headerCacheMaxSize = configProps.getFeedHeaderCacheMaxSize();
+        this.headerCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FeedHeader> eldest) {
+                return size() > headerCacheMaxSize;
+            }
+        };
     }
 
     private static final FastDateFormat DATE_FORMATTER = FastDateFormat.getDateTimeInstance(MEDIUM, MEDIUM);
@@ -37,58 +52,115 @@ class FeedObjectBuilder {
 
     private static final String PUB_DATE_FIELD_NAME = "pubDate";
 
+    private static final String PUB_DATE_MARKER = '"' + PUB_DATE_FIELD_NAME + "\":";
+
     private static final String URL_FIELD_NAME = "url";
 
     private static final String IMG_URL_FIELD_NAME = "imgUrl";
 
-    final JsonElement buildFeedObject(QueueDefinition queueDefinition, Date pubDate) {
-        JsonObject feedObject = new JsonObject();
+    //
+    // the serialized feed object is cached per transport ident, split around the pubDate value; it is reused for
+    // as long as the queue definition fields it was rendered from are unchanged, and only the pubDate is patched in
+    //
+    final void writeFeedObject(JsonWriter writer, QueueDefinition queueDefinition, Date pubDate) throws IOException {
+        if (headerCacheMaxSize <= 0) {
+            writeFeedObjectFields(writer, queueDefinition, pubDate);
+            return;
+        }
+        String transportIdent = queueDefinition.getTransportIdent();
+        String[] definition = definitionOf(queueDefinition);
+        FeedHeader feedHeader;
+        synchronized (headerCache) {
+            feedHeader = headerCache.get(transportIdent);
+        }
+        if (feedHeader == null || !Arrays.equals(feedHeader.definition(), definition)) {
+            feedHeader = renderFeedHeader(queueDefinition, definition, pubDate);
+            synchronized (headerCache) {
+                headerCache.put(transportIdent, feedHeader);
+            }
+        }
+        // the formatted date contains no characters that need escaping
+        writer.jsonValue(feedHeader.prefix() + '"' + DATE_FORMATTER.format(pubDate) + '"' + feedHeader.suffix());
+    }
+
+    private FeedHeader renderFeedHeader(QueueDefinition queueDefinition, String[] definition, Date pubDate) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter headerWriter = new JsonWriter(stringWriter);
+        headerWriter.setLenient(true);
+        writeFeedObjectFields(headerWriter, queueDefinition, pubDate);
+        headerWriter.flush();
+        String header = stringWriter.toString();
+        // field values are escaped strings, so the first occurrence of the marker is the pubDate field itself
+        int pubDateIdx = header.indexOf(PUB_DATE_MARKER) + PUB_DATE_MARKER.length();
+        int pubDateEndIdx = header.indexOf('"', pubDateIdx + 1) + 1;
+        return new FeedHeader(definition, header.substring(0, pubDateIdx), header.substring(pubDateEndIdx));
+    }
+
+    private static String[] definitionOf(QueueDefinition queueDefinition) {
+        return new String[] {
+                queueDefinition.getIdent(),
+                queueDefinition.getTitle(),
+                queueDefinition.getDescription(),
+                queueDefinition.getGenerator(),
+                queueDefinition.getCopyright(),
+                queueDefinition.getLanguage(),
+                queueDefinition.getTransportIdent(),
+                queueDefinition.getQueueImgTransportIdent(),
+        };
+    }
+
+    private record FeedHeader(String[] definition, String prefix, String suffix) {
+    }
+
+    private void writeFeedObjectFields(JsonWriter writer, QueueDefinition queueDefinition, Date pubDate) throws IOException {
+        writer.beginObject();
 
-        feedObject.addProperty(IDENT_FIELD_NAME, queueDefinition.getIdent());
+        writer.name(IDENT_FIELD_NAME).value(queueDefinition.getIdent());
 
         String title = queueDefinition.getTitle();
         if (isNotBlank(title)) {
-            feedObject.addProperty(TITLE_FIELD_NAME, title);
+            writer.name(TITLE_FIELD_NAME).value(title);
         }
 
         String description = queueDefinition.getDescription();
         if (isNotBlank(description)) {
-            feedObject.addProperty(DESCRIPTION_FIELD_NAME, description);
+            writer.name(DESCRIPTION_FIELD_NAME).value(description);
         }
 
         String generator = queueDefinition.getGenerator();
         if (isNotBlank(generator)) {
-            feedObject.addProperty(GENERATOR_FIELD_NAME, generator);
+            writer.name(GENERATOR_FIELD_NAME).value(generator);
         }
 
         String copyright = queueDefinition.getCopyright();
         if (isNotBlank(copyright)) {
-            feedObject.addProperty(COPYRIGHT_FIELD_NAME, queueDefinition.getCopyright());
+            writer.name(COPYRIGHT_FIELD_NAME).value(queueDefinition.getCopyright());
         }
 
         String language = queueDefinition.getLanguage();
         if (isNotBlank(language)) {
-            feedObject.addProperty(LANGUAGE_FIELD_NAME, language);
+            writer.name(LANGUAGE_FIELD_NAME).value(language);
         }
 
-        feedObject.addProperty(PUB_DATE_FIELD_NAME, DATE_FORMATTER.format(pubDate));
+        writer.name(PUB_DATE_FIELD_NAME).value(DATE_FORMATTER.format(pubDate));
 
-        String url = String.format(configProps.getChannelLinkTemplate(), queueDefinition.getTransportIdent());
-        feedObject.addProperty(URL_FIELD_NAME, url);
+        String url = configProps.getCompiledChannelLinkTemplate().expand(queueDefinition.getTransportIdent());
+        writer.name(URL_FIELD_NAME).value(url);
 
         String queueImgTransportIdent = queueDefinition.getQueueImgTransportIdent();
         if (isNotBlank(queueImgTransportIdent)) {
-            String imgUrl = String.format(configProps.getChannelImageUrlTemplate(), queueImgTransportIdent);
-            feedObject.addProperty(IMG_URL_FIELD_NAME, imgUrl);
+            String imgUrl = configProps.getCompiledChannelImageUrlTemplate().expand(queueImgTransportIdent);
+            writer.name(IMG_URL_FIELD_NAME).value(imgUrl);
         }
 
-        return feedObject;
+        writer.endObject();
     }
 
     @Override
     public final String toString() {
         return "FeedObjectBuilder{" +
                 "configProps=" + configProps +
+                ", headerCacheMaxSize=" + headerCacheMaxSize +
                 '}';
     }
 }
@@ -0,0 +1,13 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.DataAccessException;
+
+/**
+ * Where rendered feed documents are written; in production, the {@code RenderedFeedDao}.  This seam lets the
+ * publisher be driven without a database, e.g. by the load test.
+ */
+@FunctionalInterface
+interface FeedStore {
+
+    void putFeed(String transportIdent, String document) throws DataAccessException;
+}
@@ -1,26 +1,43 @@
 package com.lostsidewalk.buffy.json;
 
 
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.lostsidewalk.buffy.DataAccessException;
-import com.lostsidewalk.buffy.model.RenderedFeedDao;
 import com.lostsidewalk.buffy.post.StagingPost;
 import com.lostsidewalk.buffy.publisher.FeedPreview;
 import com.lostsidewalk.buffy.publisher.Publisher;
 import com.lostsidewalk.buffy.queue.QueueDefinition;
-import com.lostsidewalk.buffy.queue.QueueDefinitionDao;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static com.lostsidewalk.buffy.json.PostsArrayBuilder.buildPostsArray;
+import static com.lostsidewalk.buffy.json.FeedDigests.computeETag;
+import static com.lostsidewalk.buffy.json.PublisherThreads.newThreadFactory;
 import static com.lostsidewalk.buffy.publisher.Publisher.PubFormat.JSON;
 import static java.time.Instant.now;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.apache.commons.collections4.CollectionUtils.size;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * The JSONPublisher class is responsible for publishing JSON feeds based on configuration properties and input staging posts.
@@ -37,10 +54,40 @@ public class JSONPublisher implements Publisher {
     FeedObjectBuilder feedObjectBuilder;
 
     @Autowired
-    QueueDefinitionDao queueDefinitionDao;
+    PostsArrayBuilder postsArrayBuilder;
 
     @Autowired
-    RenderedFeedDao renderedFeedDao;
+    QueueDefinitionLookup queueDefinitionLookup;
+
+    @Autowired
+    FeedStore feedStore;
+
+    @Autowired
+    QueueDefinitionCache queueDefinitionCache;
+
+    @Autowired
+    PreviewCache previewCache;
+
+    @Autowired
+    FeedCompressor feedCompressor;
+
+    @Autowired
+    PublisherMetrics publisherMetrics;
+
+    @Autowired
+    WriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    FeedDeltas feedDeltas;
+
+    @Autowired
+    FeedDigests feedDigests;
+
+    private final Map<String, PostProjection> postProjections = new ConcurrentHashMap<>(16);
+
+    private final Map<String, PageCount> pageCounts = new ConcurrentHashMap<>(16);
+
+    private final AtomicLong renderSeq = new AtomicLong();
 
     /**
      * Default constructor; initializes the object.
@@ -49,11 +96,71 @@ public class JSONPublisher implements Publisher {
     }
 
     /**
-     * Initializes the JSONPublisher bean after construction and logs the initialization timestamp.
+     * Initializes the JSONPublisher bean after construction, optionally warming up the publish path, and logs the
+     * initialization timestamp.
      */
     @PostConstruct
-    public static void postConstruct() {
+    public final void postConstruct() {
         log.info("JSON publisher constructed at {}", now());
+        int warmUpIterations = configProps.getWarmUpIterations();
+        Duration warmUpDuration = configProps.getWarmUpDuration();
+        if (warmUpIterations > 0 || (warmUpDuration != null && warmUpDuration.isPositive())) {
+            warmUp(warmUpIterations, warmUpDuration);
+        }
+    }
+
+    //
+    // renders synthetic feeds of each shape through the publish path, up to the configured number of iterations
+    // or for the configured duration (whichever is reached first, if both are set), so that adapter setup, date
+    // formatter initialization and JIT compilation happen before the first real publish; rendered documents are
+    // digested and compressed, but never written.  Synthetic queues and posts have negative ids, so the entries
+    // they leave in the fragment and feed header caches never collide with real ones.  Stage metrics are not
+    // recorded during warm-up.
+    //
+    private void warmUp(int iterations, Duration duration) {
+        long durationNanos = duration == null ? 0L : duration.toNanos();
+        SyntheticFeeds.Shape[] shapes = SyntheticFeeds.Shape.values();
+        List<QueueDefinition> queueDefinitions = new ArrayList<>(shapes.length);
+        List<List<StagingPost>> stagingPosts = new ArrayList<>(shapes.length);
+        PublisherMetrics metrics = publisherMetrics;
+        publisherMetrics = new PublisherMetrics(null, JSON_PUBLISHER_ID);
+        long warmUpStart = System.nanoTime();
+        long firstIterationNanos = 0L;
+        long lastIterationNanos = 0L;
+        int iteration = 0;
+        try {
+            for (SyntheticFeeds.Shape shape : shapes) {
+                long queueId = -1L - shape.ordinal();
+                queueDefinitions.add(SyntheticFeeds.queueDefinition(queueId));
+                stagingPosts.add(SyntheticFeeds.stagingPosts(queueId, WARM_UP_POST_COUNT, shape));
+            }
+            while ((iterations <= 0 || iteration < iterations) && (durationNanos <= 0L || System.nanoTime() - warmUpStart < durationNanos)) {
+                long iterationStart = System.nanoTime();
+                for (int i = 0; i < shapes.length; i++) {
+                    renderDocuments(queueDefinitions.get(i), stagingPosts.get(i), new Date(), (transportIdent, payload) -> {
+                        computeETag(payload);
+                        feedCompressor.compress(payload, configProps.getCompressionFormats());
+                        if (configProps.isCborEnabled()) {
+                            CborWriter.transcode(payload);
+                        }
+                    });
+                }
+                lastIterationNanos = System.nanoTime() - iterationStart;
+                if (iteration == 0) {
+                    firstIterationNanos = lastIterationNanos;
+                }
+                iteration++;
+            }
+            log.info("JSON publisher warm-up finished: iterations={}, elapsedMs={}, firstIterationMs={}, lastIterationMs={}",
+                    iteration, NANOSECONDS.toMillis(System.nanoTime() - warmUpStart), NANOSECONDS.toMillis(firstIterationNanos), NANOSECONDS.toMillis(lastIterationNanos));
+        } catch (DataAccessException | IOException | RuntimeException e) {
+            log.warn("JSON publisher warm-up failed after {} iterations due to: {}", iteration, e.getMessage());
+        } finally {
+            for (QueueDefinition queueDefinition : queueDefinitions) {
+                pageCounts.remove(queueDefinition.getTransportIdent());
+            }
+            publisherMetrics = metrics;
+        }
     }
 
     /**
@@ -74,20 +181,431 @@ public class JSONPublisher implements Publisher {
         String transportIdent = queueDefinition.getTransportIdent();
 
         log.info("Deploying JSON feed with ident={}", queueIdent);
+        publisherMetrics.recordPostCount(size(stagingPosts));
 
         try {
-            String payload = buildPayload(queueDefinition, stagingPosts, pubDate).toString();
-            renderedFeedDao.putJSONFeedAtTransportIdent(transportIdent, payload);
-            transportPubUrl = String.format(configProps.getChannelLinkTemplate(), queueDefinition.getTransportIdent());
-            userIdentPubUrl = String.format(configProps.getChannelLinkTemplate(), queueDefinition.getUsername() + "/" + queueIdent);
+            PageCount rendered = renderDocuments(queueDefinition, stagingPosts, pubDate, this::storeDocument);
+            pagesWritten(transportIdent, rendered);
+            renderDelta(queueDefinition, stagingPosts, this::storeDocument);
+            UrlTemplate channelLinkTemplate = configProps.getCompiledChannelLinkTemplate();
+            transportPubUrl = channelLinkTemplate.expand(queueDefinition.getTransportIdent());
+            userIdentPubUrl = channelLinkTemplate.expand(queueDefinition.getUsername() + "/" + queueIdent);
             log.info("Published JSON feed for queueIdent={}, transportIdent={}, transportPubUrl={}", queueIdent, transportIdent, transportPubUrl);
-        } catch (DataAccessException | RuntimeException e) {
+        } catch (DataAccessException | IOException | RuntimeException e) {
             errors.add(e);
+            publisherMetrics.recordError(e);
+        }
+
+        return Map.of(JSON_PUBLISHER_ID, PubResult.from(transportPubUrl, userIdentPubUrl, errors, new Date()));
+    }
+
+    /**
+     * Publishes a JSON feed as by {@link #publishFeed}, without waiting for the feed to be written.  The feed is
+     * rendered on the caller's thread and its write is queued; if the feed is published again before the queued
+     * write is performed, only the latest rendering is written.  The caller blocks while the write queue is full.
+     *
+     * @param queueDefinition The queue definition associated with the feed.
+     * @param stagingPosts    The list of staging posts to include in the feed.
+     * @param pubDate         The publication date of the feed.
+     * @return A future of the publication results, which completes once the feed (or a later rendering of it) has
+     * been written.
+     */
+    public final CompletableFuture<Map<String, PubResult>> publishFeedAsync(QueueDefinition queueDefinition, List<StagingPost> stagingPosts, Date pubDate) {
+        log.info("Deploying JSON feed asynchronously with ident={}", queueDefinition.getIdent());
+        publisherMetrics.recordPostCount(size(stagingPosts));
+        Map<String, String> documents = new LinkedHashMap<>(1);
+        PageCount rendered;
+        try {
+            rendered = renderDocuments(queueDefinition, stagingPosts, pubDate, documents::put);
+            renderDelta(queueDefinition, stagingPosts, documents::put);
+        } catch (DataAccessException | IOException | RuntimeException e) {
+            return completedFuture(asyncPubResult(queueDefinition, e));
+        }
+        CompletableFuture<Void> written;
+        try {
+            written = writeBehindQueue.submit(queueDefinition.getTransportIdent(), () -> {
+                for (Map.Entry<String, String> e : documents.entrySet()) {
+                    storeDocument(e.getKey(), e.getValue());
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return completedFuture(asyncPubResult(queueDefinition, e));
         }
+        return written.handle((v, error) -> {
+            if (error == null) {
+                pagesWritten(queueDefinition.getTransportIdent(), rendered);
+            }
+            return asyncPubResult(queueDefinition, error);
+        });
+    }
 
+    private Map<String, PubResult> asyncPubResult(QueueDefinition queueDefinition, Throwable error) {
+        String transportPubUrl = null;
+        String userIdentPubUrl = null;
+        List<Throwable> errors = new ArrayList<>(1);
+        if (error == null) {
+            UrlTemplate channelLinkTemplate = configProps.getCompiledChannelLinkTemplate();
+            transportPubUrl = channelLinkTemplate.expand(queueDefinition.getTransportIdent());
+            userIdentPubUrl = channelLinkTemplate.expand(queueDefinition.getUsername() + "/" + queueDefinition.getIdent());
+            log.info("Published JSON feed for queueIdent={}, transportIdent={}, transportPubUrl={}", queueDefinition.getIdent(), queueDefinition.getTransportIdent(), transportPubUrl);
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            errors.add(cause);
+            publisherMetrics.recordError(cause);
+        }
         return Map.of(JSON_PUBLISHER_ID, PubResult.from(transportPubUrl, userIdentPubUrl, errors, new Date()));
     }
 
+    //
+    // renders the feed document, or its pages, passing each to the given sink as it is rendered; returns the page
+    // count of this rendering, to be passed to pagesWritten once the documents have been stored
+    //
+    private PageCount renderDocuments(QueueDefinition queueDefinition, List<StagingPost> stagingPosts, Date pubDate, DocumentSink sink) throws DataAccessException, IOException {
+        String transportIdent = queueDefinition.getTransportIdent();
+        int pageSize = configProps.getPageSize();
+        boolean paginated = pageSize > 0 && size(stagingPosts) > pageSize;
+        PageCount rendered = new PageCount(renderSeq.incrementAndGet(), paginated ? (stagingPosts.size() + pageSize - 1) / pageSize : 1);
+        int storedPageCount = reservePages(transportIdent, rendered);
+        if (paginated) {
+            renderPages(queueDefinition, stagingPosts, pubDate, pageSize, sink);
+        } else {
+            RenderBudget budget = feedBudget();
+            String payload = renderPayload(queueDefinition, stagingPosts, pubDate, budget);
+            recordBudgetOverrun(transportIdent, budget);
+            sink.accept(transportIdent, payload);
+        }
+        retireOrphanedPages(queueDefinition, pubDate, rendered.pages(), storedPageCount, sink);
+        return rendered;
+    }
+
+    //
+    // the page count tracked for a feed is the number of pages that may be in the store: it is raised as soon as a
+    // rendering with more pages begins, and lowered only once the rendering that set it last has been written.  A
+    // rendering that is superseded in the write-behind queue, or whose write fails, leaves it raised, so that the
+    // pages it would have retired are retired by the next rendering that is written.  Page counts are tracked only
+    // for feeds that are (or were) paginated, and are not retained across restarts, so pages orphaned while the
+    // publisher was down are not retired.  Returns the page count before this rendering
+    //
+    private int reservePages(String transportIdent, PageCount rendered) {
+        int[] storedPageCount = {1};
+        pageCounts.compute(transportIdent, (t, stored) -> {
+            if (stored != null) {
+                storedPageCount[0] = stored.pages();
+            }
+            int pages = Math.max(storedPageCount[0], rendered.pages());
+            return pages > 1 ? new PageCount(rendered.renderSeq(), pages) : null;
+        });
+        return storedPageCount[0];
+    }
+
+    //
+    // the digests of pages retired by a written rendering are forgotten, as those pages are not written again
+    //
+    private void pagesWritten(String transportIdent, PageCount written) {
+        int[] storedPageCount = {written.pages()};
+        pageCounts.computeIfPresent(transportIdent, (t, stored) -> {
+            if (stored.renderSeq() != written.renderSeq()) {
+                // a later rendering has begun, and retires at least as many pages as this one
+                return stored;
+            }
+            storedPageCount[0] = stored.pages();
+            return written.pages() > 1 ? written : null;
+        });
+        for (int pageNumber = written.pages() + 1; pageNumber <= storedPageCount[0]; pageNumber++) {
+            feedDigests.forget(pageTransportIdent(transportIdent, pageNumber));
+        }
+    }
+
+    //
+    // pages left over from an earlier rendering of the feed into more pages are overwritten with an empty terminal
+    // page, so that they neither serve stale posts nor link to other stale pages
+    //
+    private void retireOrphanedPages(QueueDefinition queueDefinition, Date pubDate, int pageCount, int storedPageCount, DocumentSink sink) throws DataAccessException, IOException {
+        if (storedPageCount <= pageCount) {
+            return;
+        }
+        String transportIdent = queueDefinition.getTransportIdent();
+        for (int pageNumber = pageCount + 1; pageNumber <= storedPageCount; pageNumber++) {
+            String payload = renderPayload(queueDefinition, List.of(), pubDate, RenderBudget.unlimited(), new FeedPage(pageNumber, null));
+            sink.accept(pageTransportIdent(transportIdent, pageNumber), payload);
+        }
+        log.info("Retired {} orphaned pages of JSON feed for transportIdent={}", storedPageCount - pageCount, transportIdent);
+    }
+
+    //
+    // each published document (a feed, or a page of one) is rendered under the configured feed budget, which keeps
+    // the size of the rendered document, and so the heap needed to build it, bounded
+    //
+    private RenderBudget feedBudget() {
+        return new RenderBudget(configProps.getFeedMaxPosts(), configProps.getFeedMaxBytes(), configProps.getFeedBudgetPolicy());
+    }
+
+    //
+    // a document rendered over its budget is still published; the posts it degraded or left out are logged and
+    // counted in the budget metrics
+    //
+    private void recordBudgetOverrun(String transportIdent, RenderBudget budget) {
+        publisherMetrics.recordBudgetOverrun(budget.getDegradedPostCount(), budget.isTruncated());
+        if (budget.getDegradedPostCount() > 0) {
+            log.warn("Dropped heavy fields from {} posts of JSON document at transportIdent={} to fit its budget", budget.getDegradedPostCount(), transportIdent);
+        }
+        if (budget.isTruncated()) {
+            log.warn("Truncated JSON document at transportIdent={} after {} posts to fit its budget", transportIdent, budget.getPostCount());
+        }
+    }
+
+    //
+    // records the posts changed by this publication, and renders the feed's window of changes as its delta
+    // document, which passes through the same sink as the feed itself (so it is skipped when unchanged, and
+    // compressed and transcoded alike)
+    //
+    private void renderDelta(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, DocumentSink sink) throws DataAccessException, IOException {
+        String transportIdent = queueDefinition.getTransportIdent();
+        FeedDeltas.Delta delta = feedDeltas.record(transportIdent, stagingPosts);
+        if (delta != null) {
+            sink.accept(transportIdent + DELTA_IDENT_SUFFIX, renderDelta(transportIdent, delta, stagingPosts));
+            log.info("Rendered JSON delta for transportIdent={}, cursor={}, versions={}", transportIdent, delta.cursor(), delta.versions().size());
+        }
+    }
+
+    /**
+     * Returns the changes to the JSON feed of the given queue since the given cursor, i.e., the posts added or
+     * updated by each publication after the one that issued the cursor, newest first.  Only the ids of changed
+     * posts are retained between publications, so the posts are rendered from the given posts, which should be
+     * those of the feed's latest publication; each changed post is rendered once, under the latest version that
+     * changed it, and changed posts that are no longer in the feed are omitted.  If the cursor precedes the window
+     * of retained publications, the delta is flagged as a reset, and the client should fetch the full feed.  The
+     * cursor of the returned delta is to be passed back on the next request.
+     *
+     * @param queueDefinition The queue definition associated with the feed.
+     * @param stagingPosts    The current posts of the feed.
+     * @param cursor          The cursor returned by the client's previous request.
+     * @return The delta document, or null if deltas are disabled, or the feed has not been published by this
+     * publisher (or not recently enough to still be tracked).
+     * @throws IOException If there is an issue rendering the delta.
+     */
+    public final String getDelta(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, long cursor) throws IOException {
+        String transportIdent = queueDefinition.getTransportIdent();
+        FeedDeltas.Delta delta = feedDeltas.since(transportIdent, cursor);
+        return delta == null ? null : renderDelta(transportIdent, delta, stagingPosts);
+    }
+
+    //
+    // a delta is rendered under the feed's limits, but never truncated: a delta missing some of its changes would
+    // leave its clients silently out of date, so one that does not fit is rendered as a reset instead, with a
+    // window that starts at its own cursor
+    //
+    private String renderDelta(String transportIdent, FeedDeltas.Delta delta, Iterable<? extends StagingPost> stagingPosts) throws IOException {
+        List<List<StagingPost>> changedPosts = changedPostsByVersion(delta, stagingPosts);
+        RenderBudget budget = new RenderBudget(configProps.getFeedMaxPosts(), configProps.getFeedMaxBytes());
+        StringWriter stringWriter = new StringWriter();
+        writeDelta(stringWriter, transportIdent, delta, changedPosts, budget);
+        if (budget.isTruncated()) {
+            log.warn("JSON delta for transportIdent={} exceeds its budget after {} posts, rendering a reset", transportIdent, budget.getPostCount());
+            stringWriter = new StringWriter();
+            writeDelta(stringWriter, transportIdent, new FeedDeltas.Delta(delta.cursor(), delta.cursor(), true, List.of()), List.of(), RenderBudget.unlimited());
+        }
+        return stringWriter.toString();
+    }
+
+    //
+    // the given posts that changed in each version of the delta, in feed order; a post goes under the latest
+    // version that changed it
+    //
+    private static List<List<StagingPost>> changedPostsByVersion(FeedDeltas.Delta delta, Iterable<? extends StagingPost> stagingPosts) {
+        List<FeedDeltas.Version> versions = delta.versions();
+        List<List<StagingPost>> changedPosts = new ArrayList<>(versions.size());
+        for (int i = 0; i < versions.size(); i++) {
+            changedPosts.add(new ArrayList<>(4));
+        }
+        if (versions.isEmpty()) {
+            return changedPosts;
+        }
+        for (StagingPost stagingPost : stagingPosts) {
+            Long id = stagingPost.getId();
+            if (id == null) {
+                continue;
+            }
+            for (int i = 0; i < versions.size(); i++) {
+                if (versions.get(i).contains(id)) {
+                    changedPosts.get(i).add(stagingPost);
+                    break;
+                }
+            }
+        }
+        return changedPosts;
+    }
+
+    private void writeDelta(Writer out, String transportIdent, FeedDeltas.Delta delta, List<List<StagingPost>> changedPosts, RenderBudget budget) throws IOException {
+        JsonWriter writer = new JsonWriter(budget.track(out));
+        writer.setLenient(true);
+        writer.beginObject();
+        writer.name(CURSOR_FIELD_NAME).value(delta.cursor());
+        writer.name(SINCE_FIELD_NAME).value(delta.since());
+        if (delta.reset()) {
+            writer.name(RESET_FIELD_NAME).value(true);
+        }
+        writer.name(CHANGES_FIELD_NAME);
+        writer.beginArray();
+        PostProjection projection = postProjectionOf(transportIdent);
+        List<FeedDeltas.Version> versions = delta.versions();
+        for (int i = 0; i < versions.size(); i++) {
+            writer.beginObject();
+            writer.name(VERSION_FIELD_NAME).value(versions.get(i).version());
+            writer.name(POSTS_FIELD_NAME);
+            postsArrayBuilder.writePostsArray(writer, changedPosts.get(i), budget, projection);
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    @FunctionalInterface
+    private interface DocumentSink {
+
+        void accept(String transportIdent, String payload) throws DataAccessException, IOException;
+    }
+
+    //
+    // splits the posts into linked page documents; page 1 is written at the feed's own transport ident, and each
+    // page is rendered and passed on before the next, so when writing synchronously only one page is held in
+    // memory at a time
+    //
+    private void renderPages(QueueDefinition queueDefinition, List<StagingPost> stagingPosts, Date pubDate, int pageSize, DocumentSink sink) throws DataAccessException, IOException {
+        String transportIdent = queueDefinition.getTransportIdent();
+        int postCount = stagingPosts.size();
+        int pageCount = (postCount + pageSize - 1) / pageSize;
+        for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+            List<StagingPost> pagePosts = stagingPosts.subList((pageNumber - 1) * pageSize, Math.min(postCount, pageNumber * pageSize));
+            String nextUrl = pageNumber < pageCount ?
+                    configProps.getCompiledChannelLinkTemplate().expand(pageTransportIdent(transportIdent, pageNumber + 1)) : null;
+            String pageTransportIdent = pageTransportIdent(transportIdent, pageNumber);
+            RenderBudget budget = feedBudget();
+            String payload = renderPayload(queueDefinition, pagePosts, pubDate, budget, new FeedPage(pageNumber, nextUrl));
+            recordBudgetOverrun(pageTransportIdent, budget);
+            sink.accept(pageTransportIdent, payload);
+        }
+        log.info("Paginated JSON feed for transportIdent={} into {} pages", transportIdent, pageCount);
+    }
+
+    private static String pageTransportIdent(String transportIdent, int pageNumber) {
+        return pageNumber == 1 ? transportIdent : transportIdent + PAGE_IDENT_INFIX + pageNumber;
+    }
+
+    //
+    // writes a rendered document along with its compressed and CBOR variants, unless its content is unchanged
+    // since it was last written; binary variants are base64-encoded, as the DAO stores text, so they are about a
+    // third larger than the raw bytes and must be decoded by the edge before they are served (see README)
+    //
+    private void storeDocument(String transportIdent, String payload) throws DataAccessException, IOException {
+        String eTag = computeETag(payload);
+        if (configProps.isSkipUnchangedWrites() && feedDigests.isUnchanged(transportIdent, eTag)) {
+            publisherMetrics.recordSkippedWrite();
+            log.info("Skipped unchanged JSON document at transportIdent={}, eTag={}", transportIdent, eTag);
+            return;
+        }
+        long storeStart = System.nanoTime();
+        feedStore.putFeed(transportIdent, payload);
+        publisherMetrics.recordStore(storeStart);
+        publisherMetrics.recordPayload(payload);
+        Map<CompressionFormat, byte[]> variants = feedCompressor.compress(payload, configProps.getCompressionFormats());
+        for (Map.Entry<CompressionFormat, byte[]> e : variants.entrySet()) {
+            feedStore.putFeed(transportIdent + e.getKey().identSuffix, BASE64_ENCODER.encodeToString(e.getValue()));
+            publisherMetrics.recordCompressed(e.getKey(), e.getValue().length);
+            log.info("Stored {} variant of JSON document at transportIdent={}, compressedSize={}", e.getKey(), transportIdent, e.getValue().length);
+        }
+        if (configProps.isCborEnabled()) {
+            byte[] cbor = CborWriter.transcode(payload);
+            feedStore.putFeed(transportIdent + CBOR_IDENT_SUFFIX, BASE64_ENCODER.encodeToString(cbor));
+            log.info("Stored CBOR variant of JSON document at transportIdent={}, cborSize={}", transportIdent, cbor.length);
+        }
+        feedDigests.recordPublished(transportIdent, eTag);
+    }
+
+    /**
+     * Publishes many JSON feeds concurrently.  Each queue is published as by {@link #publishFeed}, on its own
+     * (virtual, where available) worker thread, with at most the configured publish concurrency running at once; a
+     * failure while publishing one queue is reported in that queue's results and does not affect the others.  If
+     * more than one publication is given for the same transport ident, only the last of them is published.
+     *
+     * @param queuePublications The queues to publish, along with their staging posts and publication dates.
+     * @return A map of transport ident to the publication results for that queue, in the order given.
+     */
+    public final Map<String, Map<String, PubResult>> publishFeeds(Collection<QueuePublication> queuePublications) {
+        int concurrency = Math.max(1, configProps.getPublishConcurrency());
+        // concurrent publishes of the same transport ident would race on its documents; the last one wins
+        Map<String, QueuePublication> publications = new LinkedHashMap<>(queuePublications.size());
+        for (QueuePublication q : queuePublications) {
+            if (publications.put(q.getQueueDefinition().getTransportIdent(), q) != null) {
+                log.warn("Superseded duplicate JSON feed publication for transportIdent={}", q.getQueueDefinition().getTransportIdent());
+            }
+        }
+        log.info("Deploying {} JSON feeds with concurrency={}", publications.size(), concurrency);
+        Map<String, Map<String, PubResult>> pubResults = new LinkedHashMap<>(publications.size());
+        Map<String, FutureTask<Map<String, PubResult>>> futures = new LinkedHashMap<>(publications.size());
+        Semaphore permits = new Semaphore(concurrency);
+        ThreadFactory threadFactory = newThreadFactory("json-publisher-");
+        boolean interrupted = false;
+        for (Map.Entry<String, QueuePublication> e : publications.entrySet()) {
+            QueuePublication q = e.getValue();
+            FutureTask<Map<String, PubResult>> future = new FutureTask<>(() -> {
+                try {
+                    return publishFeed(q.getQueueDefinition(), q.getStagingPosts(), q.getPubDate());
+                } finally {
+                    permits.release();
+                }
+            });
+            futures.put(e.getKey(), future);
+            if (!interrupted) {
+                try {
+                    permits.acquire();
+                    threadFactory.newThread(future).start();
+                    continue;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                }
+            }
+            // publications not yet started when the caller is interrupted are abandoned
+            future.cancel(false);
+        }
+        for (Map.Entry<String, FutureTask<Map<String, PubResult>>> e : futures.entrySet()) {
+            pubResults.put(e.getKey(), awaitPubResult(e.getValue()));
+        }
+        log.info("Deployed {} JSON feeds at {}", pubResults.size(), now());
+        return pubResults;
+    }
+
+    private static Map<String, PubResult> awaitPubResult(Future<Map<String, PubResult>> future) {
+        Throwable error;
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        } catch (CancellationException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            error = e;
+        }
+        return Map.of(JSON_PUBLISHER_ID, PubResult.from(null, null, List.of(error), new Date()));
+    }
+
+    /**
+     * Returns the strong ETag of the JSON feed most recently written at the given transport ident.  The ETag
+     * only changes when the feed content changes; the feed publication date is not considered.
+     *
+     * @param transportIdent The transport ident of the feed.
+     * @return The quoted ETag value, or null if no feed has been written at the transport ident by this publisher,
+     * or if it has since been evicted from the configured number of tracked digests.
+     */
+    public final String getETag(String transportIdent) {
+        return feedDigests.getETag(transportIdent);
+    }
+
     /**
      * Returns the publisher ID for this JSONPublisher.
      *
@@ -124,60 +642,305 @@ public class JSONPublisher implements Publisher {
         // group posts by output file for tag
         Map<Long, List<StagingPost>> postsByFeedId = new HashMap<>(16);
         for (StagingPost incomingPost : incomingPosts) {
-            postsByFeedId.computeIfAbsent(incomingPost.getQueueId(), t -> new ArrayList<>(size(incomingPosts))).add(incomingPost);
+            postsByFeedId.computeIfAbsent(incomingPost.getQueueId(), t -> new ArrayList<>()).add(incomingPost);
         }
+        // previews of unchanged post sets are served from the cache; only the remainder need queue definitions
+        Map<Long, PreviewCache.PreviewKey> previewKeys = new HashMap<>(postsByFeedId.size());
+        Map<Long, FeedPreview> cachedPreviews = new HashMap<>(postsByFeedId.size());
+        for (Map.Entry<Long, List<StagingPost>> e : postsByFeedId.entrySet()) {
+            PreviewCache.PreviewKey previewKey = previewCache.keyOf(username, e.getKey(), format, e.getValue());
+            FeedPreview cachedPreview = previewKey == null ? null : previewCache.get(previewKey);
+            if (cachedPreview != null) {
+                cachedPreviews.put(e.getKey(), cachedPreview);
+            } else if (previewKey != null) {
+                previewKeys.put(e.getKey(), previewKey);
+            }
+        }
+        Set<Long> uncachedQueueIds = new HashSet<>(postsByFeedId.keySet());
+        uncachedQueueIds.removeAll(cachedPreviews.keySet());
+        Map<Long, QueueDefinition> queueDefinitions = uncachedQueueIds.isEmpty() ? Map.of() : findQueueDefinitions(username, uncachedQueueIds);
         List<FeedPreview> feedPreviews = new ArrayList<>(postsByFeedId.keySet().size());
         for (Map.Entry<Long, List<StagingPost>> e : postsByFeedId.entrySet()) {
-            FeedPreview feedPreview = previewFeed(username, e.getKey(), e.getValue(), format);
+            FeedPreview feedPreview = cachedPreviews.get(e.getKey());
+            if (feedPreview == null) {
+                feedPreview = previewFeed(e.getKey(), queueDefinitions.get(e.getKey()), e.getValue(), format, previewKeys.get(e.getKey()));
+            }
             if (feedPreview != null) {
                 feedPreviews.add(feedPreview);
             }
         }
-        log.info("JSON publisher preview finished at {}", now());
+        log.info("JSON publisher preview finished at {}, cachedPreviews={}", now(), cachedPreviews.size());
         return feedPreviews;
     }
 
-    private FeedPreview previewFeed(String username, Long queueId, Iterable<? extends StagingPost> stagingPosts, PubFormat format) throws DataAccessException {
+    //
+    // resolve queue definitions from the cache where possible; the remainder are fetched one query per queue,
+    // unless they are at least 1/USER_FETCH_MIN_SHARE of the user's queues, in which case all of the user's queues
+    // are fetched in a single lookup instead.  Until a user's queue count is known, all of their queues are fetched
+    // only for at least USER_FETCH_MIN_MISSES queues; that fetch also caches the rest of the user's queues, and
+    // their count
+    //
+    private Map<Long, QueueDefinition> findQueueDefinitions(String username, Collection<Long> queueIds) throws DataAccessException {
+        Map<Long, QueueDefinition> queueDefinitions = new HashMap<>(queueIds.size());
+        Set<Long> missingQueueIds = new HashSet<>(queueIds.size());
+        for (Long queueId : queueIds) {
+            QueueDefinition queueDefinition = queueDefinitionCache.get(username, queueId);
+            if (queueDefinition != null) {
+                queueDefinitions.put(queueId, queueDefinition);
+            } else {
+                missingQueueIds.add(queueId);
+            }
+        }
+        if (missingQueueIds.isEmpty()) {
+            return queueDefinitions;
+        }
+        int queueCount = queueDefinitionCache.getQueueCount(username);
+        boolean fetchAll = missingQueueIds.size() > 1 && (queueCount < 0 ?
+                missingQueueIds.size() >= USER_FETCH_MIN_MISSES :
+                (long) missingQueueIds.size() * USER_FETCH_MIN_SHARE >= queueCount);
+        if (fetchAll) {
+            List<QueueDefinition> userQueueDefinitions = queueDefinitionLookup.findByUser(username);
+            for (QueueDefinition queueDefinition : userQueueDefinitions) {
+                queueDefinitionCache.put(username, queueDefinition);
+                if (missingQueueIds.contains(queueDefinition.getId())) {
+                    queueDefinitions.put(queueDefinition.getId(), queueDefinition);
+                }
+            }
+            queueDefinitionCache.putQueueCount(username, userQueueDefinitions.size());
+        } else {
+            for (Long queueId : missingQueueIds) {
+                QueueDefinition queueDefinition = queueDefinitionLookup.findByQueueId(username, queueId);
+                if (queueDefinition != null) {
+                    queueDefinitionCache.put(username, queueDefinition);
+                    queueDefinitions.put(queueId, queueDefinition);
+                }
+            }
+        }
+        return queueDefinitions;
+    }
+
+    /**
+     * Discards the cached definition of the given queue, along with its cached previews, e.g. after the queue has
+     * been updated or deleted.
+     *
+     * @param username The username associated with the queue.
+     * @param queueId  The Id of the queue.
+     */
+    public final void invalidateQueueDefinition(String username, Long queueId) {
+        queueDefinitionCache.invalidate(username, queueId);
+        previewCache.invalidate(username, queueId);
+    }
+
+    /**
+     * Discards all cached queue definitions, along with all cached previews.
+     */
+    public final void invalidateQueueDefinitions() {
+        queueDefinitionCache.invalidateAll();
+        previewCache.invalidateAll();
+    }
+
+    //
+    // a preview is cached (under the given key, if any) only if it was rendered successfully
+    //
+    private FeedPreview previewFeed(Long queueId, QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, PubFormat format, PreviewCache.PreviewKey previewKey) {
         log.info("Previewing feed with ident={}, format={}", (queueId == null ? "(all)" : queueId), format);
+        long previewStart = System.nanoTime();
         String payload = EMPTY;
-        QueueDefinition queueDefinitionDaoByFeedId = queueDefinitionDao.findByQueueId(username, queueId);
-        if (queueDefinitionDaoByFeedId != null) {
+        boolean cacheable = false;
+        if (queueDefinition != null) {
             try {
                 if (format == JSON) {
-                    payload = buildPayload(queueDefinitionDaoByFeedId, stagingPosts, new Date()).toString();
+                    RenderBudget budget = new RenderBudget(configProps.getPreviewMaxPosts(), configProps.getPreviewMaxBytes());
+                    payload = renderPayload(queueDefinition, stagingPosts, new Date(), budget);
+                    if (budget.isTruncated()) {
+                        log.info("Truncated preview of feed with ident={} after {} posts", queueId, budget.getPostCount());
+                    }
                 }
-            } catch (RuntimeException e) {
+                cacheable = true;
+            } catch (IOException | RuntimeException e) {
                 log.error("Unable to rendered feed due to: {}", e.getMessage());
+                publisherMetrics.recordError(e);
             }
         } else {
             log.warn("Unable to locate feed definition with Id={}", queueId);
         }
+        publisherMetrics.recordPreview(previewStart);
 
-        //noinspection HardcodedLineSeparator
-        payload = payload
-                .replace("\n", EMPTY)
-                .replace("\r", EMPTY);
+        FeedPreview feedPreview = FeedPreview.from(queueId, payload);
+        if (cacheable && previewKey != null) {
+            previewCache.put(previewKey, feedPreview);
+        }
+        return feedPreview;
+    }
+
+    /**
+     * Renders a JSON feed based on the provided queue definition, staging posts, and publication date, streaming
+     * the output to the given writer as it is produced rather than building the document in memory.
+     *
+     * @param queueDefinition The queue definition associated with the feed.
+     * @param stagingPosts    The staging posts to include in the feed.
+     * @param pubDate         The publication date of the feed.
+     * @param out             The writer that receives the rendered feed.
+     * @throws IOException If there is an issue writing to the output.
+     */
+    public final void renderFeed(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate, Writer out) throws IOException {
+        renderFeed(queueDefinition, stagingPosts, pubDate, out, RenderBudget.unlimited(), FeedPage.SINGLE);
+    }
 
-        return FeedPreview.from(queueId, payload);
+    /**
+     * Renders the same feed document as {@link #renderFeed(QueueDefinition, Iterable, Date, Writer)}, encoded as
+     * CBOR (RFC 8949) rather than JSON text, streaming the output to the given stream.
+     *
+     * @param queueDefinition The queue definition associated with the feed.
+     * @param stagingPosts    The staging posts to include in the feed.
+     * @param pubDate         The publication date of the feed.
+     * @param out             The stream that receives the rendered feed.
+     * @throws IOException If there is an issue writing to the output.
+     */
+    public final void renderFeedCbor(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate, OutputStream out) throws IOException {
+        JsonWriter writer = new CborWriter(out);
+        writePayload(writer, queueDefinition, stagingPosts, pubDate, RenderBudget.unlimited(), FeedPage.SINGLE);
+        writer.flush();
     }
 
-    private JsonObject buildPayload(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate) {
+    //
+    // output is compact by construction: JsonWriter emits no whitespace and escapes line breaks within values
+    //
+    private void renderFeed(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate, Writer out, RenderBudget budget, FeedPage feedPage) throws IOException {
+        JsonWriter writer = new JsonWriter(budget.track(out));
+        writer.setLenient(true);
+        writePayload(writer, queueDefinition, stagingPosts, pubDate, budget, feedPage);
+        writer.flush();
+    }
+
+    private String renderPayload(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate, RenderBudget budget) throws IOException {
+        return renderPayload(queueDefinition, stagingPosts, pubDate, budget, FeedPage.SINGLE);
+    }
+
+    private String renderPayload(QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate, RenderBudget budget, FeedPage feedPage) throws IOException {
+        long renderStart = System.nanoTime();
+        StringWriter stringWriter = new StringWriter();
+        renderFeed(queueDefinition, stagingPosts, pubDate, stringWriter, budget, feedPage);
+        String payload = stringWriter.toString();
+        publisherMetrics.recordRender(renderStart);
+        return payload;
+    }
+
+    private void writePayload(JsonWriter writer, QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate, RenderBudget budget, FeedPage feedPage) throws IOException {
         // build/publish the feed
-        JsonObject jsonObject = new JsonObject();
-        jsonObject.add("feed", feedObjectBuilder.buildFeedObject(queueDefinition, pubDate));
-        jsonObject.add("posts", buildPostsArray(stagingPosts));
-        return jsonObject;
+        writer.beginObject();
+        if (feedPage.isFirst()) {
+            writer.name(FEED_FIELD_NAME);
+            long feedObjectStart = System.nanoTime();
+            feedObjectBuilder.writeFeedObject(writer, queueDefinition, pubDate);
+            publisherMetrics.recordFeedObject(feedObjectStart);
+        } else {
+            writer.name(PAGE_FIELD_NAME).value(feedPage.number());
+        }
+        writer.name(POSTS_FIELD_NAME);
+        long postsArrayStart = System.nanoTime();
+        postsArrayBuilder.writePostsArray(writer, stagingPosts, budget, postProjectionOf(queueDefinition.getTransportIdent()));
+        publisherMetrics.recordPostsArray(postsArrayStart);
+        if (budget.isTruncated()) {
+            writer.name(TRUNCATED_FIELD_NAME).value(true);
+        }
+        if (feedPage.nextUrl() != null) {
+            writer.name(NEXT_FIELD_NAME).value(feedPage.nextUrl());
+        }
+        writer.endObject();
     }
 
-    private static final String JSON_PUBLISHER_ID = "JSON";
+    //
+    // the output profile of a queue is selected by its transport ident, falling back to the default profile;
+    // without either, every field is rendered
+    //
+    private PostProjection postProjectionOf(String transportIdent) {
+        Map<String, String> queueProfiles = configProps.getQueueProfiles();
+        String profileName = queueProfiles == null ? null : queueProfiles.get(transportIdent);
+        if (profileName == null) {
+            profileName = configProps.getDefaultProfile();
+        }
+        if (isBlank(profileName)) {
+            return PostProjection.FULL;
+        }
+        Map<String, OutputProfile> profiles = configProps.getProfiles();
+        OutputProfile outputProfile = profiles == null ? null : profiles.get(profileName);
+        if (outputProfile == null) {
+            log.warn("Unable to locate output profile={} for transportIdent={}, rendering all fields", profileName, transportIdent);
+            return PostProjection.FULL;
+        }
+        return postProjections.computeIfAbsent(profileName, n -> new PostProjection(n, outputProfile.fieldGroups()));
+    }
+
+    //
+    // position of a rendered document within a paginated feed; only the first page carries the feed object
+    //
+    private record FeedPage(int number, String nextUrl) {
+
+        static final FeedPage SINGLE = new FeedPage(1, null);
+
+        boolean isFirst() {
+            return number == 1;
+        }
+    }
+
+    //
+    // the number of pages of one rendering of a feed, tagged with the sequence number of that rendering
+    //
+    private record PageCount(long renderSeq, int pages) {
+    }
+
+    private static final String FEED_FIELD_NAME = "feed";
+
+    private static final String POSTS_FIELD_NAME = "posts";
+
+    private static final String TRUNCATED_FIELD_NAME = "truncated";
+
+    private static final String PAGE_FIELD_NAME = "page";
+
+    private static final String NEXT_FIELD_NAME = "next";
+
+    private static final String CURSOR_FIELD_NAME = "cursor";
+
+    private static final String SINCE_FIELD_NAME = "since";
+
+    private static final String RESET_FIELD_NAME = "reset";
+
+    private static final String CHANGES_FIELD_NAME = "changes";
+
+    private static final String VERSION_FIELD_NAME = "version";
+
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
+
+    private static final String PAGE_IDENT_INFIX = "/page/";
+
+    private static final String CBOR_IDENT_SUFFIX = ".cbor";
+
+    private static final String DELTA_IDENT_SUFFIX = "/delta";
+
+    private static final int WARM_UP_POST_COUNT = 50;
+
+    private static final int USER_FETCH_MIN_MISSES = 8;
+
+    private static final int USER_FETCH_MIN_SHARE = 4;
+
+    static final String JSON_PUBLISHER_ID = "JSON";
 
     @Override
     public final String toString() {
         return "JSONPublisher{" +
                 "configProps=" + configProps +
                 ", feedObjectBuilder=" + feedObjectBuilder +
-                ", queueDefinitionDao=" + queueDefinitionDao +
-                ", renderedFeedDao=" + renderedFeedDao +
+                ", postsArrayBuilder=" + postsArrayBuilder +
+                ", queueDefinitionLookup=" + queueDefinitionLookup +
+                ", feedStore=" + feedStore +
+                ", queueDefinitionCache=" + queueDefinitionCache +
+                ", previewCache=" + previewCache +
+                ", feedCompressor=" + feedCompressor +
+                ", publisherMetrics=" + publisherMetrics +
+                ", writeBehindQueue=" + writeBehindQueue +
+                ", feedDeltas=" + feedDeltas +
+                ", feedDigests=" + feedDigests +
                 '}';
     }
 }
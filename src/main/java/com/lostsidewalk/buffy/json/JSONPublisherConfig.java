@@ -1,10 +1,17 @@
 package com.lostsidewalk.buffy.json;
 
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.model.RenderedFeedDao;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import com.lostsidewalk.buffy.queue.QueueDefinitionDao;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 /**
  * The JSONPublisherConfig class is a Spring configuration class responsible for defining and configuring beans related to JSON feed publishing.
  * It uses Spring's annotation-based configuration to define and wire the necessary components used by the JSON publisher.
@@ -16,6 +23,9 @@ public class JSONPublisherConfig {
     @Autowired
     JSONPublisherConfigProps configProps;
 
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
     /**
      * Default constructor; initializes the object.
      */
@@ -33,10 +43,137 @@ public class JSONPublisherConfig {
         return new FeedObjectBuilder(configProps);
     }
 
+    /**
+     * Defines a bean for the PostsArrayBuilder, which is responsible for building the JSON posts array.
+     *
+     * @return A new instance of PostsArrayBuilder configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    PostsArrayBuilder postsArrayBuilder() {
+        return new PostsArrayBuilder(configProps);
+    }
+
+    /**
+     * Defines a bean for the QueueDefinitionCache, which holds recently used queue definitions for previews.
+     *
+     * @return A new instance of QueueDefinitionCache configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    QueueDefinitionCache queueDefinitionCache() {
+        return new QueueDefinitionCache(configProps.getQueueDefinitionCacheTtl(), configProps.getQueueDefinitionCacheMaxSize());
+    }
+
+    /**
+     * Defines a bean for the PreviewCache, which holds recently rendered feed previews.
+     *
+     * @return A new instance of PreviewCache configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    PreviewCache previewCache() {
+        return new PreviewCache(configProps.getPreviewCacheTtl(), configProps.getPreviewCacheMaxSize());
+    }
+
+    /**
+     * Defines a bean for the FeedDeltas, which tracks the posts changed by recent publications of each feed.
+     *
+     * @return A new instance of FeedDeltas configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    FeedDeltas feedDeltas() {
+        return new FeedDeltas(configProps.getDeltaWindowSize(), configProps.getDeltaMaxFeeds());
+    }
+
+    /**
+     * Defines a bean for the FeedDigests, which tracks the content digests of recently written feed documents.
+     *
+     * @return A new instance of FeedDigests configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    FeedDigests feedDigests() {
+        return new FeedDigests(configProps.getDigestCacheMaxSize());
+    }
+
+    /**
+     * Defines a bean for the FeedCompressor, which produces compressed variants of rendered feeds.
+     *
+     * @return A new instance of FeedCompressor configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    FeedCompressor feedCompressor() {
+        return new FeedCompressor(configProps.getCompressionLevel());
+    }
+
+    /**
+     * Defines a bean for the PublisherMetrics, which records publish and preview metrics to the application's
+     * meter registry, if there is one.
+     *
+     * @return A new instance of PublisherMetrics bound to the meter registry, or a no-op instance if there is none.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    PublisherMetrics publisherMetrics() {
+        return new PublisherMetrics(meterRegistry, JSONPublisher.JSON_PUBLISHER_ID);
+    }
+
+    /**
+     * Defines a bean for the WriteBehindQueue, which coalesces and performs the feed writes of asynchronous
+     * publications; queued writes are drained when the application context is closed.
+     *
+     * @param publisherMetrics The metrics of the publisher.
+     * @return A new instance of WriteBehindQueue configured with the provided JSONPublisherConfigProps.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    WriteBehindQueue writeBehindQueue(PublisherMetrics publisherMetrics) {
+        return new WriteBehindQueue(configProps.getWriteBehindCapacity(), configProps.getWriteBehindThreads(), publisherMetrics);
+    }
+
+    /**
+     * Defines a bean for the FeedStore, through which rendered feeds are written to the RenderedFeedDao.
+     *
+     * @param renderedFeedDao The DAO that stores rendered feeds.
+     * @return A FeedStore that delegates to the RenderedFeedDao.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    FeedStore feedStore(RenderedFeedDao renderedFeedDao) {
+        return renderedFeedDao::putJSONFeedAtTransportIdent;
+    }
+
+    /**
+     * Defines a bean for the QueueDefinitionLookup, through which queue definitions are read from the
+     * QueueDefinitionDao.
+     *
+     * @param queueDefinitionDao The DAO that stores queue definitions.
+     * @return A QueueDefinitionLookup that delegates to the QueueDefinitionDao.
+     */
+    @SuppressWarnings("DesignForExtension")
+    @Bean
+    QueueDefinitionLookup queueDefinitionLookup(QueueDefinitionDao queueDefinitionDao) {
+        return new QueueDefinitionLookup() {
+            @Override
+            public QueueDefinition findByQueueId(String username, Long queueId) throws DataAccessException {
+                return queueDefinitionDao.findByQueueId(username, queueId);
+            }
+
+            @Override
+            public List<QueueDefinition> findByUser(String username) throws DataAccessException {
+                return queueDefinitionDao.findByUser(username);
+            }
+        };
+    }
+
     @Override
     public final String toString() {
         return "JSONPublisherConfig{" +
                 "configProps=" + configProps +
+                ", meterRegistry=" + meterRegistry +
                 '}';
     }
 }
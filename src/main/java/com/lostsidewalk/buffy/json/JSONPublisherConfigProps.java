@@ -4,6 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+
 
 @Slf4j
 @Configuration
@@ -14,6 +20,68 @@ class JSONPublisherConfigProps {
 
     String channelImageUrlTemplate;
 
+    UrlTemplate compiledChannelLinkTemplate = UrlTemplate.compile(null);
+
+    UrlTemplate compiledChannelImageUrlTemplate = UrlTemplate.compile(null);
+
+    int postCacheMaxSize;
+
+    boolean skipUnchangedWrites;
+
+    int digestCacheMaxSize;
+
+    int publishConcurrency;
+
+    Duration queueDefinitionCacheTtl;
+
+    int queueDefinitionCacheMaxSize;
+
+    int previewMaxPosts;
+
+    long previewMaxBytes;
+
+    List<CompressionFormat> compressionFormats;
+
+    int compressionLevel = DEFAULT_COMPRESSION;
+
+    int pageSize;
+
+    int feedHeaderCacheMaxSize;
+
+    Map<String, OutputProfile> profiles;
+
+    Map<String, String> queueProfiles;
+
+    String defaultProfile;
+
+    boolean cborEnabled;
+
+    int writeBehindCapacity;
+
+    int writeBehindThreads;
+
+    int feedMaxPosts;
+
+    long feedMaxBytes;
+
+    BudgetPolicy feedBudgetPolicy = BudgetPolicy.TRUNCATE;
+
+    int parallelRenderThreshold;
+
+    int parallelRenderChunkSize;
+
+    int warmUpIterations;
+
+    Duration warmUpDuration;
+
+    Duration previewCacheTtl;
+
+    int previewCacheMaxSize;
+
+    int deltaWindowSize;
+
+    int deltaMaxFeeds;
+
     //
     //
     //
@@ -25,6 +93,11 @@ class JSONPublisherConfigProps {
     @SuppressWarnings("unused")
     public final void setChannelLinkTemplate(String channelLinkTemplate) {
         this.channelLinkTemplate = channelLinkTemplate;
+        this.compiledChannelLinkTemplate = UrlTemplate.compile(channelLinkTemplate);
+    }
+
+    final UrlTemplate getCompiledChannelLinkTemplate() {
+        return compiledChannelLinkTemplate;
     }
 
     public final String getChannelImageUrlTemplate() {
@@ -34,6 +107,272 @@ class JSONPublisherConfigProps {
     @SuppressWarnings("unused")
     public final void setChannelImageUrlTemplate(String channelImageUrlTemplate) {
         this.channelImageUrlTemplate = channelImageUrlTemplate;
+        this.compiledChannelImageUrlTemplate = UrlTemplate.compile(channelImageUrlTemplate);
+    }
+
+    final UrlTemplate getCompiledChannelImageUrlTemplate() {
+        return compiledChannelImageUrlTemplate;
+    }
+
+    public final int getPostCacheMaxSize() {
+        return postCacheMaxSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPostCacheMaxSize(int postCacheMaxSize) {
+        this.postCacheMaxSize = postCacheMaxSize;
+    }
+
+    public final boolean isSkipUnchangedWrites() {
+        return skipUnchangedWrites;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setSkipUnchangedWrites(boolean skipUnchangedWrites) {
+        this.skipUnchangedWrites = skipUnchangedWrites;
+    }
+
+    public final int getDigestCacheMaxSize() {
+        return digestCacheMaxSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setDigestCacheMaxSize(int digestCacheMaxSize) {
+        this.digestCacheMaxSize = digestCacheMaxSize;
+    }
+
+    public final int getPublishConcurrency() {
+        return publishConcurrency;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPublishConcurrency(int publishConcurrency) {
+        this.publishConcurrency = publishConcurrency;
+    }
+
+    public final Duration getQueueDefinitionCacheTtl() {
+        return queueDefinitionCacheTtl;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setQueueDefinitionCacheTtl(Duration queueDefinitionCacheTtl) {
+        this.queueDefinitionCacheTtl = queueDefinitionCacheTtl;
+    }
+
+    public final int getQueueDefinitionCacheMaxSize() {
+        return queueDefinitionCacheMaxSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setQueueDefinitionCacheMaxSize(int queueDefinitionCacheMaxSize) {
+        this.queueDefinitionCacheMaxSize = queueDefinitionCacheMaxSize;
+    }
+
+    public final int getPreviewMaxPosts() {
+        return previewMaxPosts;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPreviewMaxPosts(int previewMaxPosts) {
+        this.previewMaxPosts = previewMaxPosts;
+    }
+
+    public final long getPreviewMaxBytes() {
+        return previewMaxBytes;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPreviewMaxBytes(long previewMaxBytes) {
+        this.previewMaxBytes = previewMaxBytes;
+    }
+
+    public final List<CompressionFormat> getCompressionFormats() {
+        return compressionFormats;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setCompressionFormats(List<CompressionFormat> compressionFormats) {
+        this.compressionFormats = compressionFormats;
+    }
+
+    public final int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = FeedCompressor.checkCompressionLevel(compressionLevel);
+    }
+
+    public final int getPageSize() {
+        return pageSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public final int getFeedHeaderCacheMaxSize() {
+        return feedHeaderCacheMaxSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setFeedHeaderCacheMaxSize(int feedHeaderCacheMaxSize) {
+        this.feedHeaderCacheMaxSize = feedHeaderCacheMaxSize;
+    }
+
+    public final Map<String, OutputProfile> getProfiles() {
+        return profiles;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setProfiles(Map<String, OutputProfile> profiles) {
+        this.profiles = profiles;
+    }
+
+    public final Map<String, String> getQueueProfiles() {
+        return queueProfiles;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setQueueProfiles(Map<String, String> queueProfiles) {
+        this.queueProfiles = queueProfiles;
+    }
+
+    public final String getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setDefaultProfile(String defaultProfile) {
+        this.defaultProfile = defaultProfile;
+    }
+
+    public final boolean isCborEnabled() {
+        return cborEnabled;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setCborEnabled(boolean cborEnabled) {
+        this.cborEnabled = cborEnabled;
+    }
+
+    public final int getWriteBehindCapacity() {
+        return writeBehindCapacity;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setWriteBehindCapacity(int writeBehindCapacity) {
+        this.writeBehindCapacity = writeBehindCapacity;
+    }
+
+    public final int getWriteBehindThreads() {
+        return writeBehindThreads;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setWriteBehindThreads(int writeBehindThreads) {
+        this.writeBehindThreads = writeBehindThreads;
+    }
+
+    public final int getFeedMaxPosts() {
+        return feedMaxPosts;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setFeedMaxPosts(int feedMaxPosts) {
+        this.feedMaxPosts = feedMaxPosts;
+    }
+
+    public final long getFeedMaxBytes() {
+        return feedMaxBytes;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setFeedMaxBytes(long feedMaxBytes) {
+        this.feedMaxBytes = feedMaxBytes;
+    }
+
+    public final BudgetPolicy getFeedBudgetPolicy() {
+        return feedBudgetPolicy;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setFeedBudgetPolicy(BudgetPolicy feedBudgetPolicy) {
+        this.feedBudgetPolicy = feedBudgetPolicy;
+    }
+
+    public final int getParallelRenderThreshold() {
+        return parallelRenderThreshold;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setParallelRenderThreshold(int parallelRenderThreshold) {
+        this.parallelRenderThreshold = parallelRenderThreshold;
+    }
+
+    public final int getParallelRenderChunkSize() {
+        return parallelRenderChunkSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setParallelRenderChunkSize(int parallelRenderChunkSize) {
+        this.parallelRenderChunkSize = parallelRenderChunkSize;
+    }
+
+    public final int getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setWarmUpIterations(int warmUpIterations) {
+        this.warmUpIterations = warmUpIterations;
+    }
+
+    public final Duration getWarmUpDuration() {
+        return warmUpDuration;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setWarmUpDuration(Duration warmUpDuration) {
+        this.warmUpDuration = warmUpDuration;
+    }
+
+    public final Duration getPreviewCacheTtl() {
+        return previewCacheTtl;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPreviewCacheTtl(Duration previewCacheTtl) {
+        this.previewCacheTtl = previewCacheTtl;
+    }
+
+    public final int getPreviewCacheMaxSize() {
+        return previewCacheMaxSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setPreviewCacheMaxSize(int previewCacheMaxSize) {
+        this.previewCacheMaxSize = previewCacheMaxSize;
+    }
+
+    public final int getDeltaWindowSize() {
+        return deltaWindowSize;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setDeltaWindowSize(int deltaWindowSize) {
+        this.deltaWindowSize = deltaWindowSize;
+    }
+
+    public final int getDeltaMaxFeeds() {
+        return deltaMaxFeeds;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setDeltaMaxFeeds(int deltaMaxFeeds) {
+        this.deltaMaxFeeds = deltaMaxFeeds;
     }
 
     @Override
@@ -41,6 +380,35 @@ class JSONPublisherConfigProps {
         return "JSONPublisherConfigProps{" +
                 "channelLinkTemplate='" + channelLinkTemplate + '\'' +
                 ", channelImageUrlTemplate='" + channelImageUrlTemplate + '\'' +
+                ", postCacheMaxSize=" + postCacheMaxSize +
+                ", skipUnchangedWrites=" + skipUnchangedWrites +
+                ", digestCacheMaxSize=" + digestCacheMaxSize +
+                ", publishConcurrency=" + publishConcurrency +
+                ", queueDefinitionCacheTtl=" + queueDefinitionCacheTtl +
+                ", queueDefinitionCacheMaxSize=" + queueDefinitionCacheMaxSize +
+                ", previewMaxPosts=" + previewMaxPosts +
+                ", previewMaxBytes=" + previewMaxBytes +
+                ", compressionFormats=" + compressionFormats +
+                ", compressionLevel=" + compressionLevel +
+                ", pageSize=" + pageSize +
+                ", feedHeaderCacheMaxSize=" + feedHeaderCacheMaxSize +
+                ", profiles=" + profiles +
+                ", queueProfiles=" + queueProfiles +
+                ", defaultProfile='" + defaultProfile + '\'' +
+                ", cborEnabled=" + cborEnabled +
+                ", writeBehindCapacity=" + writeBehindCapacity +
+                ", writeBehindThreads=" + writeBehindThreads +
+                ", feedMaxPosts=" + feedMaxPosts +
+                ", feedMaxBytes=" + feedMaxBytes +
+                ", feedBudgetPolicy=" + feedBudgetPolicy +
+                ", parallelRenderThreshold=" + parallelRenderThreshold +
+                ", parallelRenderChunkSize=" + parallelRenderChunkSize +
+                ", warmUpIterations=" + warmUpIterations +
+                ", warmUpDuration=" + warmUpDuration +
+                ", previewCacheTtl=" + previewCacheTtl +
+                ", previewCacheMaxSize=" + previewCacheMaxSize +
+                ", deltaWindowSize=" + deltaWindowSize +
+                ", deltaMaxFeeds=" + deltaMaxFeeds +
                 '}';
     }
 }
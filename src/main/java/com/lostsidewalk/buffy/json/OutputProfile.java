@@ -0,0 +1,51 @@
+package com.lostsidewalk.buffy.json;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A named output profile, configured under {@code json.publisher.profiles.<name>}, that selects the groups of
+ * post fields rendered into a feed.  If {@code include} is empty, every group not listed in {@code exclude} is
+ * rendered; otherwise only the included groups that are not also excluded are rendered.
+ */
+class OutputProfile {
+
+    Set<PostFieldGroup> include;
+
+    Set<PostFieldGroup> exclude;
+
+    public final Set<PostFieldGroup> getInclude() {
+        return include;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setInclude(Set<PostFieldGroup> include) {
+        this.include = include;
+    }
+
+    public final Set<PostFieldGroup> getExclude() {
+        return exclude;
+    }
+
+    @SuppressWarnings("unused")
+    public final void setExclude(Set<PostFieldGroup> exclude) {
+        this.exclude = exclude;
+    }
+
+    final Set<PostFieldGroup> fieldGroups() {
+        Set<PostFieldGroup> fieldGroups = include == null || include.isEmpty() ?
+                EnumSet.allOf(PostFieldGroup.class) : EnumSet.copyOf(include);
+        if (exclude != null) {
+            fieldGroups.removeAll(exclude);
+        }
+        return fieldGroups;
+    }
+
+    @Override
+    public final String toString() {
+        return "OutputProfile{" +
+                "include=" + include +
+                ", exclude=" + exclude +
+                '}';
+    }
+}
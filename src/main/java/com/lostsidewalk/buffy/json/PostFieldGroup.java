@@ -0,0 +1,59 @@
+package com.lostsidewalk.buffy.json;
+
+/**
+ * Groups of post fields that an output profile may include in or exclude from the posts array.
+ */
+enum PostFieldGroup {
+    /**
+     * postTitle
+     */
+    TITLE,
+    /**
+     * postDesc
+     */
+    DESCRIPTION,
+    /**
+     * postContents
+     */
+    CONTENTS,
+    /**
+     * postMedia
+     */
+    MEDIA,
+    /**
+     * postITunes
+     */
+    ITUNES,
+    /**
+     * postUrl, postUrls
+     */
+    LINKS,
+    /**
+     * postImgUrl
+     */
+    IMAGE,
+    /**
+     * postComment
+     */
+    COMMENT,
+    /**
+     * postRights
+     */
+    RIGHTS,
+    /**
+     * contributors, authors
+     */
+    PEOPLE,
+    /**
+     * postCategories
+     */
+    CATEGORIES,
+    /**
+     * publishTimestamp, expirationTimestamp, lastUpdatedTimestamp
+     */
+    TIMESTAMPS,
+    /**
+     * enclosures
+     */
+    ENCLOSURES,
+}
@@ -0,0 +1,108 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Bounded LRU cache of rendered post fragments, keyed by post identity, last-updated timestamp and output profile.
+ * A post that has not been persisted yet (no id) or has never been updated (no timestamp) has no stable key and is
+ * never cached.  The cache is striped: keys are spread over segments, each an LRU map with its own lock and an even
+ * share of the capacity, so that concurrent renderers (such as the fork-join tasks of a parallel rendering) rarely
+ * contend; eviction is least-recently-used within a segment, and so only approximately across the cache.
+ */
+@Slf4j
+class PostFragmentCache {
+
+    private static final int MAX_SEGMENT_COUNT = 16;
+
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final int maxSize;
+
+    private final Segment[] segments;
+
+    PostFragmentCache(int maxSize) {
+        this.maxSize = maxSize;
+        // a power of two, so that a segment is selected by masking
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENT_COUNT, maxSize / MIN_SEGMENT_SIZE)));
+        int segmentSize = (maxSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    final boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    final FragmentKey keyOf(StagingPost stagingPost, PostProjection projection) {
+        Long id = stagingPost.getId();
+        Date lastUpdatedTimestamp = stagingPost.getLastUpdatedTimestamp();
+        if (id == null || lastUpdatedTimestamp == null) {
+            return null;
+        }
+        return new FragmentKey(id, lastUpdatedTimestamp.getTime(), projection.profileName());
+    }
+
+    final String get(FragmentKey key) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    final void put(FragmentKey key, String fragment) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, fragment);
+        }
+    }
+
+    final int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentOf(FragmentKey key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    private static final class Segment extends LinkedHashMap<FragmentKey, String> {
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FragmentKey, String> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    record FragmentKey(long postId, long lastUpdatedTime, String profileName) {
+    }
+
+    @Override
+    public final String toString() {
+        return "PostFragmentCache{" +
+                "maxSize=" + maxSize +
+                ", segmentCount=" + segments.length +
+                ", size=" + size() +
+                '}';
+    }
+}
@@ -0,0 +1,31 @@
+package com.lostsidewalk.buffy.json;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The resolved set of post field groups to render for a feed, along with the name of the output profile it was
+ * resolved from (null for the full projection).  The profile name distinguishes cached post fragments.
+ */
+record PostProjection(String profileName, Set<PostFieldGroup> fieldGroups) {
+
+    static final PostProjection FULL = new PostProjection(null, EnumSet.allOf(PostFieldGroup.class));
+
+    private static final Set<PostFieldGroup> HEAVY_FIELD_GROUPS = EnumSet.of(
+            PostFieldGroup.CONTENTS, PostFieldGroup.MEDIA, PostFieldGroup.ITUNES, PostFieldGroup.ENCLOSURES);
+
+    private static final String LEAN_PROFILE_SUFFIX = "#lean";
+
+    boolean includes(PostFieldGroup fieldGroup) {
+        return fieldGroups.contains(fieldGroup);
+    }
+
+    /**
+     * Returns this projection without its heavy field groups, used to make oversized posts fit a render budget.
+     */
+    PostProjection withoutHeavyFields() {
+        Set<PostFieldGroup> leanFieldGroups = fieldGroups.isEmpty() ? EnumSet.noneOf(PostFieldGroup.class) : EnumSet.copyOf(fieldGroups);
+        leanFieldGroups.removeAll(HEAVY_FIELD_GROUPS);
+        return new PostProjection((profileName == null ? "" : profileName) + LEAN_PROFILE_SUFFIX, leanFieldGroups);
+    }
+}
@@ -1,18 +1,24 @@
 package com.lostsidewalk.buffy.json;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.lostsidewalk.buffy.post.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.FastDateFormat;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import static com.lostsidewalk.buffy.json.PostFieldGroup.*;
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -22,6 +28,17 @@ import static org.apache.commons.lang3.time.FastDateFormat.MEDIUM;
 @Slf4j
 class PostsArrayBuilder {
 
+    final JSONPublisherConfigProps configProps;
+
+    private final PostFragmentCache fragmentCache;
+
+    private final Map<PostProjection, PostProjection> leanProjections = new ConcurrentHashMap<>(4);
+
+    PostsArrayBuilder(JSONPublisherConfigProps configProps) {
+        this.configProps = configProps;
+        this.fragmentCache = new PostFragmentCache(configProps.getPostCacheMaxSize());
+    }
+
     private static final Gson GSON = new Gson();
 
     private static final FastDateFormat DATE_FORMATTER = FastDateFormat.getDateTimeInstance(MEDIUM, MEDIUM);
@@ -46,118 +63,329 @@ class PostsArrayBuilder {
     private static final String EXPIRATION_TIMESTAMP_FIELD_NAME = "expirationTimestamp";
     private static final String LAST_UPDATED_TIMESTAMP_FIELD_NAME = "lastUpdatedTimestamp";
 
+    //
+    // adapters are resolved once; Gson.getAdapter would otherwise be consulted for every model written
+    //
     @SuppressWarnings("EmptyClass")
-    private static final Type LIST_OF_POST_PERSON_TYPE = new TypeToken<List<PostPerson>>() {}.getType();
+    private static final TypeAdapter<List<PostPerson>> POST_PERSON_LIST_ADAPTER = GSON.getAdapter(new TypeToken<List<PostPerson>>() {});
 
     @SuppressWarnings("EmptyClass")
-    private static final Type LIST_OF_CONTENT_OBJECT_TYPE = new TypeToken<List<ContentObject>>() {}.getType();
+    private static final TypeAdapter<List<ContentObject>> CONTENT_OBJECT_LIST_ADAPTER = GSON.getAdapter(new TypeToken<List<ContentObject>>() {});
 
     @SuppressWarnings("EmptyClass")
-    private static final Type LIST_OF_STRING_TYPE = new TypeToken<List<String>>() {}.getType();
+    private static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = GSON.getAdapter(new TypeToken<List<String>>() {});
 
     @SuppressWarnings("EmptyClass")
-    private static final Type LIST_OF_POST_URL_TYPE = new TypeToken<List<PostUrl>>() {}.getType();
+    private static final TypeAdapter<List<PostUrl>> POST_URL_LIST_ADAPTER = GSON.getAdapter(new TypeToken<List<PostUrl>>() {});
 
     @SuppressWarnings("EmptyClass")
-    private static final Type LIST_OF_ENCLOSURE_TYPE = new TypeToken<List<PostEnclosure>>() {}.getType();
+    private static final TypeAdapter<List<PostEnclosure>> ENCLOSURE_LIST_ADAPTER = GSON.getAdapter(new TypeToken<List<PostEnclosure>>() {});
+
+    private static final TypeAdapter<PostMedia> POST_MEDIA_ADAPTER = GSON.getAdapter(PostMedia.class);
+
+    private static final TypeAdapter<PostITunes> POST_ITUNES_ADAPTER = GSON.getAdapter(PostITunes.class);
+
+    final void writePostsArray(JsonWriter writer, Iterable<? extends StagingPost> stagingPosts, RenderBudget budget, PostProjection projection) throws IOException {
+        writer.beginArray();
+        int parallelThreshold = configProps.getParallelRenderThreshold();
+        if (parallelThreshold > 0 && stagingPosts instanceof List<? extends StagingPost> postList && postList.size() >= parallelThreshold) {
+            writePostsParallel(writer, postList, budget, projection);
+        } else {
+            for (StagingPost stagingPost : stagingPosts) {
+                if (!budget.isLimited()) {
+                    writePost(writer, stagingPost, projection);
+                } else if (budget.canStream()) {
+                    budget.beginStreamedPost();
+                    writePost(writer, stagingPost, projection);
+                    budget.endStreamedPost();
+                } else if (!writeAdmitted(writer, stagingPost, postFragment(stagingPost, projection), budget, projection)) {
+                    break;
+                }
+            }
+        }
+        writer.endArray();
+    }
 
-    static JsonElement buildPostsArray(Iterable<? extends StagingPost> stagingPosts) {
-        JsonArray arr = new JsonArray();
-        for (StagingPost stagingPost : stagingPosts) {
-            JsonObject sObj = new JsonObject();
-            // post title
+    //
+    // near its limits, a limited rendering sizes each post before admitting it; a post is only counted as
+    // degraded if its lean fragment is admitted in its place
+    //
+    private boolean writeAdmitted(JsonWriter writer, StagingPost stagingPost, String fragment, RenderBudget budget, PostProjection projection) throws IOException {
+        long fragmentBytes = budget.sizeOf(fragment);
+        boolean degraded = false;
+        if (budget.getPolicy() == BudgetPolicy.DROP_HEAVY_FIELDS && budget.hasPostCapacity() && !budget.fits(fragmentBytes)) {
+            String leanFragment = postFragment(stagingPost, leanProjections.computeIfAbsent(projection, PostProjection::withoutHeavyFields));
+            long leanFragmentBytes = budget.sizeOf(leanFragment);
+            if (budget.fits(leanFragmentBytes)) {
+                fragment = leanFragment;
+                fragmentBytes = leanFragmentBytes;
+                degraded = true;
+            }
+        }
+        if (!budget.admit(fragment, fragmentBytes)) {
+            return false;
+        }
+        if (degraded) {
+            budget.recordDegradedPost();
+        }
+        writer.jsonValue(fragment);
+        return true;
+    }
+
+    //
+    // post fragments are rendered in chunks on the common fork-join pool, one window of chunks at a time, and
+    // spliced into the output in their original order; bounding the window bounds the fragments held in memory,
+    // and lets a limited rendering stop early once it is truncated
+    //
+    private void writePostsParallel(JsonWriter writer, List<? extends StagingPost> stagingPosts, RenderBudget budget, PostProjection projection) throws IOException {
+        int chunkSize = Math.max(1, configProps.getParallelRenderChunkSize());
+        int windowSize = chunkSize * ForkJoinPool.getCommonPoolParallelism() * 2;
+        for (int windowStart = 0; windowStart < stagingPosts.size(); windowStart += windowSize) {
+            List<? extends StagingPost> window = stagingPosts.subList(windowStart, Math.min(stagingPosts.size(), windowStart + windowSize));
+            String[] fragments = new String[window.size()];
+            FragmentTask fragmentTask = new FragmentTask(window, projection, fragments, 0, fragments.length, chunkSize);
+            try {
+                ForkJoinPool.commonPool().invoke(fragmentTask);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (int i = 0; i < fragments.length; i++) {
+                if (!budget.isLimited()) {
+                    writer.jsonValue(fragments[i]);
+                } else if (!writeAdmitted(writer, window.get(i), fragments[i], budget, projection)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private final class FragmentTask extends RecursiveAction {
+
+        private final List<? extends StagingPost> stagingPosts;
+
+        private final PostProjection projection;
+
+        private final String[] fragments;
+
+        private final int from;
+
+        private final int to;
+
+        private final int chunkSize;
+
+        private FragmentTask(List<? extends StagingPost> stagingPosts, PostProjection projection, String[] fragments, int from, int to, int chunkSize) {
+            this.stagingPosts = stagingPosts;
+            this.projection = projection;
+            this.fragments = fragments;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FragmentTask(stagingPosts, projection, fragments, from, mid, chunkSize),
+                        new FragmentTask(stagingPosts, projection, fragments, mid, to, chunkSize));
+                return;
+            }
+            try {
+                for (int i = from; i < to; i++) {
+                    fragments[i] = postFragment(stagingPosts.get(i), projection);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    //
+    // unchanged posts are spliced into the output from the fragment cache; new or updated posts are rendered
+    // into a fragment once and cached for the next publish
+    //
+    private void writePost(JsonWriter writer, StagingPost stagingPost, PostProjection projection) throws IOException {
+        PostFragmentCache.FragmentKey key = fragmentKey(stagingPost, projection);
+        if (key == null) {
+            writePostObject(writer, stagingPost, projection);
+        } else {
+            writer.jsonValue(cachedFragment(key, stagingPost, projection));
+        }
+    }
+
+    private String postFragment(StagingPost stagingPost, PostProjection projection) throws IOException {
+        PostFragmentCache.FragmentKey key = fragmentKey(stagingPost, projection);
+        return key == null ? renderFragment(stagingPost, projection) : cachedFragment(key, stagingPost, projection);
+    }
+
+    private PostFragmentCache.FragmentKey fragmentKey(StagingPost stagingPost, PostProjection projection) {
+        return fragmentCache.isEnabled() ? fragmentCache.keyOf(stagingPost, projection) : null;
+    }
+
+    private String cachedFragment(PostFragmentCache.FragmentKey key, StagingPost stagingPost, PostProjection projection) throws IOException {
+        String fragment = fragmentCache.get(key);
+        if (fragment == null) {
+            fragment = renderFragment(stagingPost, projection);
+            fragmentCache.put(key, fragment);
+        }
+        return fragment;
+    }
+
+    private static String renderFragment(StagingPost stagingPost, PostProjection projection) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter fragmentWriter = new JsonWriter(stringWriter);
+        fragmentWriter.setLenient(true);
+        writePostObject(fragmentWriter, stagingPost, projection);
+        fragmentWriter.flush();
+        return stringWriter.toString();
+    }
+
+    //
+    // field groups excluded by the projection are neither fetched from the post nor serialized
+    //
+    private static void writePostObject(JsonWriter writer, StagingPost stagingPost, PostProjection projection) throws IOException {
+        writer.beginObject();
+        // post title
+        if (projection.includes(TITLE)) {
             ContentObject postTitle = stagingPost.getPostTitle();
             if (postTitle != null) {
-                sObj.addProperty(POST_TITLE_FIELD_NAME, postTitle.getValue());
+                writer.name(POST_TITLE_FIELD_NAME).value(postTitle.getValue());
             }
-            // post description
+        }
+        // post description
+        if (projection.includes(DESCRIPTION)) {
             ContentObject postDesc = stagingPost.getPostDesc();
             if (postDesc != null) {
-                sObj.addProperty(POST_DESC_FIELD_NAME, postDesc.getValue());
+                writer.name(POST_DESC_FIELD_NAME).value(postDesc.getValue());
             }
-            // post contents
+        }
+        // post contents
+        if (projection.includes(CONTENTS)) {
             List<ContentObject> postContents = stagingPost.getPostContents();
             if (isNotEmpty(postContents)) {
-                JsonElement contentsArr = GSON.toJsonTree(postContents, LIST_OF_CONTENT_OBJECT_TYPE);
-                sObj.add(POST_CONTENTS_FIELD_NAME, contentsArr);
+                writer.name(POST_CONTENTS_FIELD_NAME);
+                writeModel(writer, postContents, CONTENT_OBJECT_LIST_ADAPTER);
             }
-            // post media
+        }
+        // post media
+        if (projection.includes(MEDIA)) {
             PostMedia postMedia = stagingPost.getPostMedia();
             if (postMedia != null) {
-                JsonElement postMediaObj = GSON.toJsonTree(postMedia, PostMedia.class);
-                sObj.add(POST_MEDIA_FIELD_NAME, postMediaObj);
+                writer.name(POST_MEDIA_FIELD_NAME);
+                writeModel(writer, postMedia, POST_MEDIA_ADAPTER);
             }
-            // post itunes
+        }
+        // post itunes
+        if (projection.includes(ITUNES)) {
             PostITunes postITunes = stagingPost.getPostITunes();
             if (postITunes != null) {
-                JsonElement postITunesObj = GSON.toJsonTree(postITunes, PostITunes.class);
-                sObj.add(POST_ITUNES_FIELD_NAME, postITunesObj);
+                writer.name(POST_ITUNES_FIELD_NAME);
+                writeModel(writer, postITunes, POST_ITUNES_ADAPTER);
             }
+        }
 
+        if (projection.includes(LINKS)) {
             // post URL
-            sObj.addProperty(POST_URL_FIELD_NAME, stagingPost.getPostUrl());
+            writer.name(POST_URL_FIELD_NAME).value(stagingPost.getPostUrl());
             // post URLs
             List<PostUrl> postUrls = stagingPost.getPostUrls();
             if (isNotEmpty(postUrls)) {
-                JsonElement urlsArr = GSON.toJsonTree(postUrls, LIST_OF_POST_URL_TYPE);
-                sObj.add(POST_URLS_FIELD_NAME, urlsArr);
+                writer.name(POST_URLS_FIELD_NAME);
+                writeModel(writer, postUrls, POST_URL_LIST_ADAPTER);
             }
-            // post thumbnail URL
+        }
+        // post thumbnail URL
+        if (projection.includes(IMAGE)) {
             String postImgUrl = stagingPost.getPostImgUrl();
             if (isNotBlank(postImgUrl)) {
-                sObj.addProperty(POST_IMG_URL_FIELD_NAME, postImgUrl);
+                writer.name(POST_IMG_URL_FIELD_NAME).value(postImgUrl);
             }
-            // post comment
+        }
+        // post comment
+        if (projection.includes(COMMENT)) {
             String postComment = stagingPost.getPostComment();
             if (isNotBlank(postComment)) {
-                sObj.addProperty(POST_COMMENT_FIELD_NAME, stagingPost.getPostComment());
+                writer.name(POST_COMMENT_FIELD_NAME).value(stagingPost.getPostComment());
             }
+        }
 
-            // post rights
+        // post rights
+        if (projection.includes(RIGHTS)) {
             String postRights = stagingPost.getPostRights();
             if (isNotBlank(postRights)) {
-                sObj.addProperty(POST_RIGHTS_FIELD_NAME, postRights);
+                writer.name(POST_RIGHTS_FIELD_NAME).value(postRights);
             }
+        }
+        if (projection.includes(PEOPLE)) {
             // contributors
             List<PostPerson> contributors = stagingPost.getContributors();
             if (isNotEmpty(contributors)) {
-                JsonElement contributorsArr = GSON.toJsonTree(contributors, LIST_OF_POST_PERSON_TYPE);
-                sObj.add(CONTRIBUTORS_FIELD_NAME, contributorsArr);
+                writer.name(CONTRIBUTORS_FIELD_NAME);
+                writeModel(writer, contributors, POST_PERSON_LIST_ADAPTER);
             }
-            // authors 
+            // authors
             List<PostPerson> authors = stagingPost.getAuthors();
             if (isNotEmpty(authors)) {
-                JsonElement authorsArr = GSON.toJsonTree(authors, LIST_OF_POST_PERSON_TYPE);
-                sObj.add(AUTHORS_FIELD_NAME, authorsArr);
+                writer.name(AUTHORS_FIELD_NAME);
+                writeModel(writer, authors, POST_PERSON_LIST_ADAPTER);
             }
-            // post categories
+        }
+        // post categories
+        if (projection.includes(CATEGORIES)) {
             List<String> postCategories = stagingPost.getPostCategories();
             if (isNotEmpty(postCategories)) {
-                JsonElement postCategoriesArr = GSON.toJsonTree(postCategories, LIST_OF_STRING_TYPE);
-                sObj.add(POST_CATEGORIES_FIELD_NAME, postCategoriesArr);
+                writer.name(POST_CATEGORIES_FIELD_NAME);
+                writeModel(writer, postCategories, STRING_LIST_ADAPTER);
             }
+        }
+        boolean includeTimestamps = projection.includes(TIMESTAMPS);
+        if (includeTimestamps) {
             // publish timestamp
-            sObj.addProperty(PUBLISH_TIMESTAMP_FIELD_NAME, ofNullable(stagingPost.getPublishTimestamp()).map(DATE_FORMATTER::format).orElse(null));
+            writer.name(PUBLISH_TIMESTAMP_FIELD_NAME).value(ofNullable(stagingPost.getPublishTimestamp()).map(DATE_FORMATTER::format).orElse(null));
             // expiration timestamp
             Date expirationTimestamp = stagingPost.getExpirationTimestamp();
             if (expirationTimestamp != null) {
-                sObj.addProperty(EXPIRATION_TIMESTAMP_FIELD_NAME, DATE_FORMATTER.format(expirationTimestamp));
+                writer.name(EXPIRATION_TIMESTAMP_FIELD_NAME).value(DATE_FORMATTER.format(expirationTimestamp));
             }
-            // enclosures
+        }
+        // enclosures
+        if (projection.includes(ENCLOSURES)) {
             List<PostEnclosure> enclosures = stagingPost.getEnclosures();
             if (isNotEmpty(enclosures)) {
-                JsonElement enclosuresArr = GSON.toJsonTree(enclosures, LIST_OF_ENCLOSURE_TYPE);
-                sObj.add(ENCLOSURES_FIELD_NAME, enclosuresArr);
+                writer.name(ENCLOSURES_FIELD_NAME);
+                writeModel(writer, enclosures, ENCLOSURE_LIST_ADAPTER);
             }
-            // last updated timestamp
+        }
+        // last updated timestamp
+        if (includeTimestamps) {
             Date lastUpdatedTimestamp = stagingPost.getLastUpdatedTimestamp();
             if (lastUpdatedTimestamp != null) {
-                sObj.addProperty(LAST_UPDATED_TIMESTAMP_FIELD_NAME, DATE_FORMATTER.format(lastUpdatedTimestamp));
+                writer.name(LAST_UPDATED_TIMESTAMP_FIELD_NAME).value(DATE_FORMATTER.format(lastUpdatedTimestamp));
             }
-            //
-            arr.add(sObj);
         }
+        //
+        writer.endObject();
+    }
+
+    //
+    // model objects are written through their Gson adapters; the adapters run with null serialization
+    // disabled so that the output matches what Gson.toJsonTree would have produced
+    //
+    private static <T> void writeModel(JsonWriter writer, T model, TypeAdapter<T> adapter) throws IOException {
+        boolean serializeNulls = writer.getSerializeNulls();
+        writer.setSerializeNulls(false);
+        try {
+            adapter.write(writer, model);
+        } finally {
+            writer.setSerializeNulls(serializeNulls);
+        }
+    }
 
-        return arr;
+    @Override
+    public final String toString() {
+        return "PostsArrayBuilder{" +
+                "configProps=" + configProps +
+                ", fragmentCache=" + fragmentCache +
+                '}';
     }
 }
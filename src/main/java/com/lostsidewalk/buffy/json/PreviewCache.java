@@ -0,0 +1,119 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.publisher.FeedPreview;
+import com.lostsidewalk.buffy.publisher.Publisher.PubFormat;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.lang.System.currentTimeMillis;
+
+
+/**
+ * Bounded cache of rendered feed previews keyed by (username, queueId, format) and a fingerprint of the previewed
+ * posts, i.e., their ids and last-updated timestamps, in order.  Entries expire after a fixed time-to-live and the
+ * least recently used entries are evicted once the cache is full.  A set of posts that includes a post without an
+ * id or last-updated timestamp has no stable fingerprint and is never cached.
+ */
+@Slf4j
+class PreviewCache {
+
+    private final long ttlMillis;
+
+    private final int maxSize;
+
+    private final Map<PreviewKey, CacheEntry> entries;
+
+    PreviewCache(Duration ttl, int maxSize) {
+        this.ttlMillis = ttl == null ? 0L : ttl.toMillis();
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PreviewKey, CacheEntry> eldest) {
+                return size() > PreviewCache.this.maxSize;
+            }
+        };
+    }
+
+    final boolean isEnabled() {
+        return ttlMillis > 0L && maxSize > 0;
+    }
+
+    final PreviewKey keyOf(String username, Long queueId, PubFormat format, Iterable<? extends StagingPost> stagingPosts) {
+        if (!isEnabled()) {
+            return null;
+        }
+        long fingerprint = 0L;
+        int postCount = 0;
+        for (StagingPost stagingPost : stagingPosts) {
+            Long id = stagingPost.getId();
+            Date lastUpdatedTimestamp = stagingPost.getLastUpdatedTimestamp();
+            if (id == null || lastUpdatedTimestamp == null) {
+                return null;
+            }
+            fingerprint = mix(mix(fingerprint ^ id) ^ lastUpdatedTimestamp.getTime());
+            postCount++;
+        }
+        return new PreviewKey(username, queueId, format, postCount, fingerprint);
+    }
+
+    // the SplitMix64 finalizer, applied after each value so that the fingerprint depends on the order of the posts
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    final FeedPreview get(PreviewKey key) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.feedPreview();
+        }
+    }
+
+    final void put(PreviewKey key, FeedPreview feedPreview) {
+        CacheEntry entry = new CacheEntry(feedPreview, currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    final void invalidate(String username, Long queueId) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> Objects.equals(key.queueId(), queueId) && Objects.equals(key.username(), username));
+        }
+    }
+
+    final void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    record PreviewKey(String username, Long queueId, PubFormat format, int postCount, long fingerprint) {
+    }
+
+    private record CacheEntry(FeedPreview feedPreview, long expiresAt) {
+    }
+
+    @Override
+    public final String toString() {
+        return "PreviewCache{" +
+                "ttlMillis=" + ttlMillis +
+                ", maxSize=" + maxSize +
+                '}';
+    }
+}
@@ -0,0 +1,210 @@
+package com.lostsidewalk.buffy.json;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+
+/**
+ * Optional Micrometer instrumentation of the publish and preview stages.  Meters are registered once, tagged by
+ * publisher id; when no meter registry is available, every recording method returns immediately without
+ * allocating.  Stage timings are taken by the caller as {@link System#nanoTime()} start values.
+ */
+@Slf4j
+class PublisherMetrics {
+
+    private static final String PUBLISHER_TAG = "publisher";
+
+    private static final String FORMAT_TAG = "format";
+
+    private static final String EXCEPTION_TAG = "exception";
+
+    private final MeterRegistry meterRegistry;
+
+    private final String publisherId;
+
+    private final Timer feedObjectTimer;
+
+    private final Timer postsArrayTimer;
+
+    private final Timer renderTimer;
+
+    private final Timer storeTimer;
+
+    private final Timer previewTimer;
+
+    private final DistributionSummary payloadBytes;
+
+    private final DistributionSummary postsPerFeed;
+
+    private final Counter coalescedWrites;
+
+    private final Counter skippedWrites;
+
+    private final Counter degradedPosts;
+
+    private final Counter truncatedDocuments;
+
+    private final Map<CompressionFormat, DistributionSummary> compressedBytes = new EnumMap<>(CompressionFormat.class);
+
+    PublisherMetrics(MeterRegistry meterRegistry, String publisherId) {
+        this.meterRegistry = meterRegistry;
+        this.publisherId = publisherId;
+        if (meterRegistry == null) {
+            this.feedObjectTimer = null;
+            this.postsArrayTimer = null;
+            this.renderTimer = null;
+            this.storeTimer = null;
+            this.previewTimer = null;
+            this.payloadBytes = null;
+            this.postsPerFeed = null;
+            this.coalescedWrites = null;
+            this.skippedWrites = null;
+            this.degradedPosts = null;
+            this.truncatedDocuments = null;
+            return;
+        }
+        this.feedObjectTimer = timer("json.publisher.feed.object", "Time to build the feed object");
+        this.postsArrayTimer = timer("json.publisher.posts.array", "Time to build the posts array");
+        this.renderTimer = timer("json.publisher.render", "Time to serialize a complete feed document");
+        this.storeTimer = timer("json.publisher.store", "Time to write a feed document to the rendered feed store");
+        this.previewTimer = timer("json.publisher.preview", "Time to render a feed preview");
+        this.payloadBytes = summary("json.publisher.payload.size", "Size of written feed documents", "bytes");
+        this.postsPerFeed = summary("json.publisher.feed.posts", "Number of posts per published feed", "posts");
+        this.coalescedWrites = Counter.builder("json.publisher.writes.coalesced")
+                .description("Number of queued feed writes superseded by a later write to the same feed")
+                .tag(PUBLISHER_TAG, publisherId)
+                .register(meterRegistry);
+        this.skippedWrites = Counter.builder("json.publisher.writes.skipped")
+                .description("Number of feed documents not written because their content was unchanged")
+                .tag(PUBLISHER_TAG, publisherId)
+                .register(meterRegistry);
+        this.degradedPosts = Counter.builder("json.publisher.budget.degraded.posts")
+                .description("Number of posts published without their heavy fields to fit the feed budget")
+                .tag(PUBLISHER_TAG, publisherId)
+                .register(meterRegistry);
+        this.truncatedDocuments = Counter.builder("json.publisher.budget.truncated")
+                .description("Number of feed documents published with posts left out to fit the feed budget")
+                .tag(PUBLISHER_TAG, publisherId)
+                .register(meterRegistry);
+        for (CompressionFormat format : CompressionFormat.values()) {
+            compressedBytes.put(format, DistributionSummary.builder("json.publisher.payload.compressed.size")
+                    .description("Size of compressed variants of written feed documents")
+                    .baseUnit("bytes")
+                    .tag(PUBLISHER_TAG, publisherId)
+                    .tag(FORMAT_TAG, format.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(PUBLISHER_TAG, publisherId)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary summary(String name, String description, String baseUnit) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(baseUnit)
+                .tag(PUBLISHER_TAG, publisherId)
+                .register(meterRegistry);
+    }
+
+    final boolean isEnabled() {
+        return meterRegistry != null;
+    }
+
+    final void recordFeedObject(long startNanos) {
+        record(feedObjectTimer, startNanos);
+    }
+
+    final void recordPostsArray(long startNanos) {
+        record(postsArrayTimer, startNanos);
+    }
+
+    final void recordRender(long startNanos) {
+        record(renderTimer, startNanos);
+    }
+
+    final void recordStore(long startNanos) {
+        record(storeTimer, startNanos);
+    }
+
+    final void recordPreview(long startNanos) {
+        record(previewTimer, startNanos);
+    }
+
+    final void recordPayload(CharSequence payload) {
+        if (payloadBytes != null) {
+            payloadBytes.record(RenderBudget.utf8Length(payload));
+        }
+    }
+
+    final void recordPostCount(int postCount) {
+        if (postsPerFeed != null) {
+            postsPerFeed.record(postCount);
+        }
+    }
+
+    final void recordCompressed(CompressionFormat format, int compressedSize) {
+        if (meterRegistry != null) {
+            compressedBytes.get(format).record(compressedSize);
+        }
+    }
+
+    final void recordCoalescedWrite() {
+        if (coalescedWrites != null) {
+            coalescedWrites.increment();
+        }
+    }
+
+    final void recordSkippedWrite() {
+        if (skippedWrites != null) {
+            skippedWrites.increment();
+        }
+    }
+
+    final void recordBudgetOverrun(int degradedPostCount, boolean truncated) {
+        if (meterRegistry == null) {
+            return;
+        }
+        if (degradedPostCount > 0) {
+            degradedPosts.increment(degradedPostCount);
+        }
+        if (truncated) {
+            truncatedDocuments.increment();
+        }
+    }
+
+    final void recordError(Throwable error) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("json.publisher.errors",
+                    PUBLISHER_TAG, publisherId,
+                    EXCEPTION_TAG, error.getClass().getSimpleName()
+            ).increment();
+        }
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, NANOSECONDS);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "PublisherMetrics{" +
+                "publisherId='" + publisherId + '\'' +
+                ", enabled=" + isEnabled() +
+                '}';
+    }
+}
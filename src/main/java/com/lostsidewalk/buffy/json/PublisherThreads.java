@@ -0,0 +1,36 @@
+package com.lostsidewalk.buffy.json;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Creates the worker threads used for concurrent publishing.  Virtual threads are used when the runtime provides
+ * them; on Java 19 and 20 they are a preview feature, so the lookup is reflective and falls back to platform
+ * daemon threads when preview features are not enabled.
+ */
+@Slf4j
+final class PublisherThreads {
+
+    private PublisherThreads() {
+    }
+
+    static ThreadFactory newThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads are unavailable, using platform threads: {}", e.getMessage());
+        }
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
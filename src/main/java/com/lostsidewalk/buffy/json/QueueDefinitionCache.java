@@ -0,0 +1,142 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.System.currentTimeMillis;
+
+
+/**
+ * Bounded cache of queue definitions keyed by (username, queueId).  Entries expire after a fixed time-to-live and
+ * the least recently used entries are evicted once the cache is full.  The number of queues of each user whose
+ * queues were last fetched all at once is remembered alike, so that callers can tell whether fetching them all
+ * again is worthwhile.
+ */
+@Slf4j
+class QueueDefinitionCache {
+
+    private final long ttlMillis;
+
+    private final int maxSize;
+
+    private final Map<CacheKey, CacheEntry> entries;
+
+    private final Map<String, QueueCountEntry> queueCounts;
+
+    QueueDefinitionCache(Duration ttl, int maxSize) {
+        this.ttlMillis = ttl == null ? 0L : ttl.toMillis();
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > QueueDefinitionCache.this.maxSize;
+            }
+        };
+        this.queueCounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueueCountEntry> eldest) {
+                return size() > QueueDefinitionCache.this.maxSize;
+            }
+        };
+    }
+
+    final boolean isEnabled() {
+        return ttlMillis > 0L && maxSize > 0;
+    }
+
+    final QueueDefinition get(String username, Long queueId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        CacheKey key = new CacheKey(username, queueId);
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.queueDefinition();
+        }
+    }
+
+    final void put(String username, QueueDefinition queueDefinition) {
+        if (!isEnabled()) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(queueDefinition, currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(new CacheKey(username, queueDefinition.getId()), entry);
+        }
+    }
+
+    /**
+     * Returns the number of queues the given user had when their queues were last fetched all at once.
+     *
+     * @return The queue count, or -1 if it is not known.
+     */
+    final int getQueueCount(String username) {
+        if (!isEnabled()) {
+            return -1;
+        }
+        synchronized (queueCounts) {
+            QueueCountEntry entry = queueCounts.get(username);
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.expiresAt() <= currentTimeMillis()) {
+                queueCounts.remove(username);
+                return -1;
+            }
+            return entry.queueCount();
+        }
+    }
+
+    final void putQueueCount(String username, int queueCount) {
+        if (!isEnabled()) {
+            return;
+        }
+        QueueCountEntry entry = new QueueCountEntry(queueCount, currentTimeMillis() + ttlMillis);
+        synchronized (queueCounts) {
+            queueCounts.put(username, entry);
+        }
+    }
+
+    final void invalidate(String username, Long queueId) {
+        synchronized (entries) {
+            entries.remove(new CacheKey(username, queueId));
+        }
+    }
+
+    final void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        synchronized (queueCounts) {
+            queueCounts.clear();
+        }
+    }
+
+    private record CacheKey(String username, Long queueId) {
+    }
+
+    private record CacheEntry(QueueDefinition queueDefinition, long expiresAt) {
+    }
+
+    private record QueueCountEntry(int queueCount, long expiresAt) {
+    }
+
+    @Override
+    public final String toString() {
+        return "QueueDefinitionCache{" +
+                "ttlMillis=" + ttlMillis +
+                ", maxSize=" + maxSize +
+                '}';
+    }
+}
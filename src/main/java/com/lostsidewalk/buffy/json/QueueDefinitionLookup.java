@@ -0,0 +1,17 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+
+import java.util.List;
+
+/**
+ * Where queue definitions are looked up for previews; in production, the {@code QueueDefinitionDao}.  This seam
+ * lets the publisher be driven without a database, e.g. by the load test.
+ */
+interface QueueDefinitionLookup {
+
+    QueueDefinition findByQueueId(String username, Long queueId) throws DataAccessException;
+
+    List<QueueDefinition> findByUser(String username) throws DataAccessException;
+}
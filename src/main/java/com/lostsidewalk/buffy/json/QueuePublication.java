@@ -0,0 +1,74 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The QueuePublication class describes a single unit of work for a bulk publish: a queue definition, the staging
+ * posts to publish for it, and the publication date.
+ */
+public final class QueuePublication {
+
+    private final QueueDefinition queueDefinition;
+
+    private final List<StagingPost> stagingPosts;
+
+    private final Date pubDate;
+
+    private QueuePublication(QueueDefinition queueDefinition, List<StagingPost> stagingPosts, Date pubDate) {
+        this.queueDefinition = queueDefinition;
+        this.stagingPosts = stagingPosts;
+        this.pubDate = pubDate;
+    }
+
+    /**
+     * Creates a new unit of work for a bulk publish.
+     *
+     * @param queueDefinition The queue definition associated with the feed.
+     * @param stagingPosts    The list of staging posts to include in the feed.
+     * @param pubDate         The publication date of the feed.
+     * @return A new QueuePublication instance.
+     */
+    public static QueuePublication from(QueueDefinition queueDefinition, List<StagingPost> stagingPosts, Date pubDate) {
+        return new QueuePublication(queueDefinition, stagingPosts, pubDate);
+    }
+
+    /**
+     * Returns the queue definition associated with the feed.
+     *
+     * @return The queue definition.
+     */
+    public QueueDefinition getQueueDefinition() {
+        return queueDefinition;
+    }
+
+    /**
+     * Returns the staging posts to include in the feed.
+     *
+     * @return The list of staging posts.
+     */
+    public List<StagingPost> getStagingPosts() {
+        return stagingPosts;
+    }
+
+    /**
+     * Returns the publication date of the feed.
+     *
+     * @return The publication date.
+     */
+    public Date getPubDate() {
+        return pubDate;
+    }
+
+    @Override
+    public String toString() {
+        return "QueuePublication{" +
+                "queueDefinition=" + queueDefinition +
+                ", stagingPosts=" + stagingPosts +
+                ", pubDate=" + pubDate +
+                '}';
+    }
+}
@@ -0,0 +1,245 @@
+package com.lostsidewalk.buffy.json;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Tracks the size of a single rendering against optional limits on the number of posts and the number of output
+ * bytes (UTF-8).  Posts are admitted one at a time; once a post would exceed either limit, it and all remaining
+ * posts are left out and the rendering is marked as truncated, or, under the {@link BudgetPolicy#FAIL} policy, the
+ * rendering is abandoned.  While the output is far from its byte limit, posts are streamed to it and counted as
+ * they are written; only once the remaining bytes come within a headroom of twice the largest post so far (and at
+ * least {@value #MIN_STREAMING_HEADROOM_BYTES} bytes) is each post rendered and sized before it is admitted.  A post
+ * larger than that headroom may therefore overrun the byte limit by up to its own size.  A budget is stateful and
+ * must not be reused.
+ */
+@Slf4j
+class RenderBudget {
+
+    private final int maxPosts;
+
+    private final long maxBytes;
+
+    private final BudgetPolicy policy;
+
+    private int postCount;
+
+    private int degradedPostCount;
+
+    private boolean truncated;
+
+    private ByteCountingWriter byteCounter;
+
+    private long largestPostBytes;
+
+    private long streamedPostStart;
+
+    static final long MIN_STREAMING_HEADROOM_BYTES = 1L << 20;
+
+    RenderBudget(int maxPosts, long maxBytes) {
+        this(maxPosts, maxBytes, BudgetPolicy.TRUNCATE);
+    }
+
+    RenderBudget(int maxPosts, long maxBytes, BudgetPolicy policy) {
+        this.maxPosts = maxPosts;
+        this.maxBytes = maxBytes;
+        this.policy = policy == null ? BudgetPolicy.TRUNCATE : policy;
+    }
+
+    static RenderBudget unlimited() {
+        return new RenderBudget(0, 0L);
+    }
+
+    final boolean isLimited() {
+        return maxPosts > 0 || maxBytes > 0L;
+    }
+
+    /**
+     * Returns a writer that counts the bytes written to the given output, if a byte limit is in effect.
+     */
+    final Writer track(Writer out) {
+        if (maxBytes <= 0L) {
+            return out;
+        }
+        byteCounter = new ByteCountingWriter(out);
+        return byteCounter;
+    }
+
+    /**
+     * Returns the size of the given post fragment as counted against the byte limit, or zero if there is none.
+     */
+    final long sizeOf(CharSequence fragment) {
+        return byteCounter == null ? 0L : utf8Length(fragment);
+    }
+
+    /**
+     * Returns true if a post fragment of the given size can be admitted without exceeding either limit.
+     */
+    final boolean fits(long fragmentBytes) {
+        return !truncated && hasPostCapacity() && (byteCounter == null || byteCounter.byteCount + fragmentBytes <= maxBytes);
+    }
+
+    final boolean hasPostCapacity() {
+        return maxPosts <= 0 || postCount < maxPosts;
+    }
+
+    /**
+     * Returns true if the next post may be written straight to the output, and counted as it is written, rather
+     * than rendered and sized first.
+     */
+    final boolean canStream() {
+        if (truncated || !hasPostCapacity()) {
+            return false;
+        }
+        return byteCounter == null || maxBytes - byteCounter.byteCount > Math.max(MIN_STREAMING_HEADROOM_BYTES, largestPostBytes << 1);
+    }
+
+    final void beginStreamedPost() {
+        if (byteCounter != null) {
+            streamedPostStart = byteCounter.byteCount;
+        }
+    }
+
+    final void endStreamedPost() {
+        postCount++;
+        if (byteCounter != null) {
+            largestPostBytes = Math.max(largestPostBytes, byteCounter.byteCount - streamedPostStart);
+        }
+    }
+
+    /**
+     * Admits the given post fragment, of the given size, if it fits; the fragment is then counted once, here, and
+     * not again as it is written to the tracked output.
+     */
+    final boolean admit(CharSequence fragment, long fragmentBytes) {
+        if (fits(fragmentBytes)) {
+            postCount++;
+            if (byteCounter != null) {
+                largestPostBytes = Math.max(largestPostBytes, fragmentBytes);
+                byteCounter.precount(fragment, fragmentBytes);
+            }
+            return true;
+        }
+        if (!truncated) {
+            truncated = true;
+            if (policy == BudgetPolicy.FAIL) {
+                throw new RenderBudgetExceededException("Rendered feed exceeds its budget of maxPosts=" + maxPosts +
+                        ", maxBytes=" + maxBytes + " after " + postCount + " posts");
+            }
+        }
+        return false;
+    }
+
+    final BudgetPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Records that a post was rendered without its heavy fields in order to fit.
+     */
+    final void recordDegradedPost() {
+        degradedPostCount++;
+    }
+
+    final int getDegradedPostCount() {
+        return degradedPostCount;
+    }
+
+    final boolean isTruncated() {
+        return truncated;
+    }
+
+    final int getPostCount() {
+        return postCount;
+    }
+
+    static int utf8Length(CharSequence chars) {
+        int length = 0;
+        for (int i = 0, n = chars.length(); i < n; i++) {
+            length += utf8Length(chars.charAt(i));
+        }
+        return length;
+    }
+
+    // surrogate pairs count 2 + 2 bytes, which matches their 4-byte UTF-8 encoding
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    //
+    // a fragment that has already been sized is counted without rescanning when it is appended, as JsonWriter
+    // does with raw values
+    //
+    private static final class ByteCountingWriter extends FilterWriter {
+
+        private long byteCount;
+
+        private CharSequence precounted;
+
+        private long precountedBytes;
+
+        private ByteCountingWriter(Writer out) {
+            super(out);
+        }
+
+        private void precount(CharSequence fragment, long fragmentBytes) {
+            precounted = fragment;
+            precountedBytes = fragmentBytes;
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            if (csq != null && csq == precounted) {
+                precounted = null;
+                out.append(csq);
+                byteCount += precountedBytes;
+                return this;
+            }
+            return super.append(csq);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            byteCount += utf8Length((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            super.write(cbuf, off, len);
+            for (int i = off; i < off + len; i++) {
+                byteCount += utf8Length(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            super.write(str, off, len);
+            for (int i = off; i < off + len; i++) {
+                byteCount += utf8Length(str.charAt(i));
+            }
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "RenderBudget{" +
+                "maxPosts=" + maxPosts +
+                ", maxBytes=" + maxBytes +
+                ", policy=" + policy +
+                ", postCount=" + postCount +
+                ", degradedPostCount=" + degradedPostCount +
+                ", truncated=" + truncated +
+                '}';
+    }
+}
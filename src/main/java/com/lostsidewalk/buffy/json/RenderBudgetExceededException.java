@@ -0,0 +1,11 @@
+package com.lostsidewalk.buffy.json;
+
+/**
+ * Thrown when a rendering under the {@link BudgetPolicy#FAIL} policy would exceed its post or byte budget.
+ */
+class RenderBudgetExceededException extends RuntimeException {
+
+    RenderBudgetExceededException(String message) {
+        super(message);
+    }
+}
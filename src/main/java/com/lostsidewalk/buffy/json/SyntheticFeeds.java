@@ -0,0 +1,191 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.*;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Generates synthetic queue definitions and staging posts for the startup warm-up and for benchmarking.  Model
+ * objects are materialized from JSON through Gson, so the generator does not depend on the constructors of the
+ * newsgears-data model classes.
+ */
+final class SyntheticFeeds {
+
+    /**
+     * The shape of the generated posts.
+     */
+    enum Shape {
+        /**
+         * Title, description, URL, a category and timestamps.
+         */
+        SMALL,
+        /**
+         * Adds several large contents, URLs, enclosures, a thumbnail and media metadata.
+         */
+        MEDIA_HEAVY,
+        /**
+         * Adds iTunes metadata, authors and contributors.
+         */
+        ITUNES_HEAVY,
+    }
+
+    private static final Gson GSON = new Gson();
+
+    private static final long BASE_TIMESTAMP = 1_672_531_200_000L;
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor " +
+            "incididunt ut labore et dolore magna aliqua. <p>Ut enim ad minim veniam, quis nostrud exercitation ullamco " +
+            "laboris nisi ut aliquip ex ea commodo consequat.</p> ";
+
+    private SyntheticFeeds() {
+    }
+
+    static QueueDefinition queueDefinition(long id) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", id);
+        obj.addProperty("ident", "queue-" + id);
+        obj.addProperty("title", "Synthetic queue " + id);
+        obj.addProperty("description", "A synthetic queue used for benchmarking");
+        obj.addProperty("generator", "newsgears");
+        obj.addProperty("copyright", "(c) Lost Sidewalk Software");
+        obj.addProperty("language", "en-US");
+        obj.addProperty("transportIdent", "transport-" + id);
+        obj.addProperty("queueImgTransportIdent", "img-" + id);
+        obj.addProperty("username", "benchmark");
+        return GSON.fromJson(obj, QueueDefinition.class);
+    }
+
+    static List<StagingPost> stagingPosts(long queueId, int count, Shape shape) {
+        List<StagingPost> stagingPosts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stagingPosts.add(stagingPost(queueId, i, shape));
+        }
+        return stagingPosts;
+    }
+
+    static StagingPost stagingPost(long queueId, int index, Shape shape) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", queueId * 1_000_000L + index);
+        obj.addProperty("queueId", queueId);
+        obj.add("postTitle", contentObject("text", "Synthetic post " + index));
+        obj.add("postDesc", contentObject("text", LOREM));
+        obj.addProperty("postUrl", "https://example.com/posts/" + index);
+        obj.add("postCategories", strings("category-" + (index % 7)));
+        obj.add("publishTimestamp", timestamp(index));
+        obj.add("lastUpdatedTimestamp", timestamp(index));
+        if (shape == Shape.MEDIA_HEAVY) {
+            JsonArray contents = new JsonArray();
+            for (int c = 0; c < 3; c++) {
+                contents.add(contentObject("html", LOREM.repeat(8)));
+            }
+            obj.add("postContents", contents);
+            JsonArray urls = new JsonArray();
+            for (int u = 0; u < 3; u++) {
+                JsonObject url = new JsonObject();
+                url.addProperty("title", "Link " + u);
+                url.addProperty("type", "text/html");
+                url.addProperty("href", "https://example.com/posts/" + index + "/links/" + u);
+                url.addProperty("rel", "alternate");
+                urls.add(url);
+            }
+            obj.add("postUrls", urls);
+            JsonArray enclosures = new JsonArray();
+            for (int e = 0; e < 2; e++) {
+                JsonObject enclosure = new JsonObject();
+                enclosure.addProperty("url", "https://cdn.example.com/media/" + index + '-' + e + ".mp4");
+                enclosure.addProperty("type", "video/mp4");
+                enclosure.addProperty("length", 10_485_760L);
+                enclosures.add(enclosure);
+            }
+            obj.add("enclosures", enclosures);
+            obj.addProperty("postImgUrl", "https://cdn.example.com/thumbs/" + index + ".jpg");
+            JsonObject metadata = new JsonObject();
+            metadata.addProperty("title", "Media " + index);
+            metadata.addProperty("desc", LOREM);
+            JsonObject media = new JsonObject();
+            media.add("postMediaMetadata", metadata);
+            obj.add("postMedia", media);
+        } else if (shape == Shape.ITUNES_HEAVY) {
+            JsonObject iTunes = new JsonObject();
+            iTunes.addProperty("author", "Synthetic Author");
+            iTunes.addProperty("subTitle", "Episode " + index);
+            iTunes.addProperty("summary", LOREM.repeat(4));
+            iTunes.addProperty("imageUri", "https://cdn.example.com/art/" + index + ".png");
+            iTunes.addProperty("title", "Episode " + index);
+            obj.add("postITunes", iTunes);
+            obj.add("authors", people("Author", 2));
+            obj.add("contributors", people("Contributor", 3));
+        }
+        return toStagingPost(obj, shape);
+    }
+
+    //
+    // the media and iTunes models are nested and evolve independently of this generator; Gson ignores fields it
+    // does not know, so a synthetic shape that no longer matches the model binds to an empty (or missing) object
+    // rather than failing.  Generation fails instead, as a benchmark of heavy posts that quietly renders light
+    // ones would report a wrong number
+    //
+    private static StagingPost toStagingPost(JsonObject obj, Shape shape) {
+        StagingPost stagingPost;
+        try {
+            stagingPost = GSON.fromJson(obj, StagingPost.class);
+        } catch (JsonParseException e) {
+            throw new IllegalStateException("Unable to bind synthetic " + shape + " post: " + e.getMessage(), e);
+        }
+        if (shape == Shape.MEDIA_HEAVY) {
+            requireBound(shape, "postMedia", stagingPost.getPostMedia());
+            requireBound(shape, "enclosures", stagingPost.getEnclosures());
+            requireBound(shape, "postUrls", stagingPost.getPostUrls());
+        } else if (shape == Shape.ITUNES_HEAVY) {
+            requireBound(shape, "postITunes", stagingPost.getPostITunes());
+            requireBound(shape, "authors", stagingPost.getAuthors());
+            requireBound(shape, "contributors", stagingPost.getContributors());
+        }
+        return stagingPost;
+    }
+
+    private static void requireBound(Shape shape, String fieldName, Object model) {
+        JsonElement bound = model == null ? JsonNull.INSTANCE : GSON.toJsonTree(model);
+        boolean empty = bound.isJsonNull()
+                || (bound.isJsonObject() && bound.getAsJsonObject().size() == 0)
+                || (bound.isJsonArray() && (bound.getAsJsonArray().isEmpty() || bound.getAsJsonArray().get(0).getAsJsonObject().size() == 0));
+        if (empty) {
+            throw new IllegalStateException("Synthetic " + shape + " post does not bind " + fieldName + " to the model");
+        }
+    }
+
+    private static JsonObject contentObject(String type, String value) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("type", type);
+        obj.addProperty("value", value);
+        return obj;
+    }
+
+    private static JsonArray strings(String... values) {
+        JsonArray arr = new JsonArray();
+        for (String value : values) {
+            arr.add(value);
+        }
+        return arr;
+    }
+
+    private static JsonArray people(String role, int count) {
+        JsonArray arr = new JsonArray();
+        for (int p = 0; p < count; p++) {
+            JsonObject person = new JsonObject();
+            person.addProperty("name", role + ' ' + p);
+            person.addProperty("email", role.toLowerCase() + p + "@example.com");
+            person.addProperty("uri", "https://example.com/people/" + p);
+            arr.add(person);
+        }
+        return arr;
+    }
+
+    private static JsonElement timestamp(int index) {
+        return GSON.toJsonTree(new Date(BASE_TIMESTAMP + index * 60_000L));
+    }
+}
@@ -0,0 +1,42 @@
+package com.lostsidewalk.buffy.json;
+
+/**
+ * A URL template in {@link String#format} syntax, parsed once.  The common case of a template with a single
+ * {@code %s} placeholder (and no other format specifiers) is expanded by concatenation; any other template is
+ * expanded with {@link String#format}.
+ */
+final class UrlTemplate {
+
+    private static final String PLACEHOLDER = "%s";
+
+    private final String template;
+
+    private final String prefix;
+
+    private final String suffix;
+
+    private UrlTemplate(String template, String prefix, String suffix) {
+        this.template = template;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    static UrlTemplate compile(String template) {
+        if (template != null) {
+            int placeholderIdx = template.indexOf(PLACEHOLDER);
+            if (placeholderIdx >= 0 && template.indexOf('%') == placeholderIdx && template.indexOf('%', placeholderIdx + 1) < 0) {
+                return new UrlTemplate(template, template.substring(0, placeholderIdx), template.substring(placeholderIdx + PLACEHOLDER.length()));
+            }
+        }
+        return new UrlTemplate(template, null, null);
+    }
+
+    String expand(String arg) {
+        return prefix != null ? prefix + arg + suffix : String.format(template, arg);
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,226 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.lostsidewalk.buffy.json.PublisherThreads.newThreadFactory;
+
+
+/**
+ * Bounded queue of pending feed writes, drained by a small pool of writer threads.  Writes are keyed by transport
+ * ident: a write submitted while an earlier write for the same transport ident is still queued replaces it, and
+ * the futures of both complete when the surviving write does, so a burst of publications costs one write.  Writes
+ * to the same transport ident are never run concurrently.  When the queue holds its capacity of distinct
+ * transport idents, submitters block until a writer makes room.  Writer threads are started on first use.
+ */
+@Slf4j
+class WriteBehindQueue implements AutoCloseable {
+
+    /**
+     * A pending write of one or more documents.
+     */
+    @FunctionalInterface
+    interface Write {
+
+        void run() throws DataAccessException, IOException;
+    }
+
+    private final int capacity;
+
+    private final int writerCount;
+
+    private final PublisherMetrics publisherMetrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Map<String, PendingWrite> pending = new LinkedHashMap<>(16);
+
+    private final Set<String> inFlight = new HashSet<>(16);
+
+    private final List<Thread> writers = new ArrayList<>(1);
+
+    private boolean closed;
+
+    WriteBehindQueue(int capacity, int writerCount, PublisherMetrics publisherMetrics) {
+        this.capacity = Math.max(1, capacity);
+        this.writerCount = Math.max(1, writerCount);
+        this.publisherMetrics = publisherMetrics;
+    }
+
+    /**
+     * Queues a write for the given transport ident, blocking while the queue is full.
+     *
+     * @return A future that completes once the write, or a later write that superseded it, has finished.
+     * @throws InterruptedException If interrupted while waiting for room in the queue.
+     */
+    final CompletableFuture<Void> submit(String transportIdent, Write write) throws InterruptedException {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lockInterruptibly();
+        try {
+            PendingWrite superseded = pending.get(transportIdent);
+            while (superseded == null && pending.size() >= capacity && !closed) {
+                notFull.await();
+                superseded = pending.get(transportIdent);
+            }
+            if (closed) {
+                future.completeExceptionally(new RejectedExecutionException("Write-behind queue is closed"));
+                return future;
+            }
+            startWriters();
+            if (superseded != null) {
+                superseded.write = write;
+                superseded.futures.add(future);
+                publisherMetrics.recordCoalescedWrite();
+                log.debug("Coalesced pending write for transportIdent={}, waiters={}", transportIdent, superseded.futures.size());
+            } else {
+                pending.put(transportIdent, new PendingWrite(transportIdent, write, future));
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    private void startWriters() {
+        if (!writers.isEmpty()) {
+            return;
+        }
+        ThreadFactory threadFactory = newThreadFactory("json-publisher-writer-");
+        for (int i = 0; i < writerCount; i++) {
+            Thread writer = threadFactory.newThread(this::drain);
+            writers.add(writer);
+            writer.start();
+        }
+        log.info("Started {} write-behind writers with capacity={}", writerCount, capacity);
+    }
+
+    private void drain() {
+        PendingWrite next;
+        while ((next = take()) != null) {
+            Throwable error = null;
+            try {
+                next.write.run();
+            } catch (DataAccessException | IOException | RuntimeException e) {
+                error = e;
+            } finally {
+                release(next.transportIdent);
+            }
+            for (CompletableFuture<Void> future : next.futures) {
+                if (error == null) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    //
+    // takes the oldest pending write whose transport ident is not already being written; returns null once the
+    // queue is closed and drained
+    //
+    private PendingWrite take() {
+        lock.lock();
+        try {
+            while (true) {
+                for (Iterator<PendingWrite> it = pending.values().iterator(); it.hasNext(); ) {
+                    PendingWrite pendingWrite = it.next();
+                    if (inFlight.add(pendingWrite.transportIdent)) {
+                        it.remove();
+                        notFull.signal();
+                        return pendingWrite;
+                    }
+                }
+                if (closed && pending.isEmpty()) {
+                    return null;
+                }
+                notEmpty.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(String transportIdent) {
+        lock.lock();
+        try {
+            inFlight.remove(transportIdent);
+            if (pending.containsKey(transportIdent)) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    final int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting writes, and waits for the writers to finish the writes already queued.
+     */
+    @Override
+    public final void close() {
+        List<Thread> started;
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            started = List.copyOf(writers);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            for (Thread writer : started) {
+                writer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while draining write-behind queue, pendingWrites={}", size());
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final String transportIdent;
+
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>(1);
+
+        private Write write;
+
+        private PendingWrite(String transportIdent, Write write, CompletableFuture<Void> future) {
+            this.transportIdent = transportIdent;
+            this.write = write;
+            futures.add(future);
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "WriteBehindQueue{" +
+                "capacity=" + capacity +
+                ", writerCount=" + writerCount +
+                ", closed=" + closed +
+                '}';
+    }
+}
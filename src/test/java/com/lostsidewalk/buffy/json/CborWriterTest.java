@@ -0,0 +1,207 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.*;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trips the CBOR encoding of feed documents, decoding it back into a JSON tree and comparing that with the
+ * JSON rendering of the same feed.
+ */
+class CborWriterTest {
+
+    private static final Date PUB_DATE = new Date(1_672_531_200_000L);
+
+    private static final int POST_COUNT = 5;
+
+    @ParameterizedTest
+    @EnumSource(SyntheticFeeds.Shape.class)
+    void transcodeMatchesJson(SyntheticFeeds.Shape shape) throws IOException {
+        String json = renderJson(shape);
+
+        JsonElement decoded = CborDecoder.decode(CborWriter.transcode(json));
+
+        assertEquals(JsonParser.parseString(json), decoded);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SyntheticFeeds.Shape.class)
+    void renderFeedCborMatchesRenderFeed(SyntheticFeeds.Shape shape) throws IOException {
+        JSONPublisher publisher = TestPublishers.publisher(TestPublishers.configProps());
+        QueueDefinition queueDefinition = SyntheticFeeds.queueDefinition(1L);
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, POST_COUNT, shape);
+        StringWriter json = new StringWriter();
+        publisher.renderFeed(queueDefinition, stagingPosts, PUB_DATE, json);
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+
+        publisher.renderFeedCbor(queueDefinition, stagingPosts, PUB_DATE, cbor);
+
+        JsonElement decoded = CborDecoder.decode(cbor.toByteArray());
+        assertEquals(JsonParser.parseString(json.toString()), decoded);
+        assertModelFieldsPresent(shape, decoded.getAsJsonObject().getAsJsonArray("posts"));
+    }
+
+    @Test
+    void transcodeMatchesJsonScalars() throws IOException {
+        String json = "{\"s\":\"caf\\u00e9 \\ud83d\\ude00\",\"empty\":\"\",\"zero\":0,\"small\":23,\"byte\":24,\"short\":65536," +
+                "\"long\":4294967296,\"max\":9223372036854775807,\"negative\":-1,\"min\":-9223372036854775808," +
+                "\"double\":1.5,\"exponent\":1.0E-10,\"true\":true,\"false\":false,\"null\":null,\"nested\":[[],{},[{}]]}";
+
+        JsonElement decoded = CborDecoder.decode(CborWriter.transcode(json));
+
+        assertEquals(JsonParser.parseString(json), decoded);
+    }
+
+    @Test
+    void nullMembersAreSkippedUnlessSerialized() throws IOException {
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+        CborWriter writer = new CborWriter(cbor);
+        writer.setSerializeNulls(false);
+
+        writer.beginObject().name("a").nullValue().name("b").value(1L).endObject().flush();
+
+        assertEquals(JsonParser.parseString("{\"b\":1}"), CborDecoder.decode(cbor.toByteArray()));
+    }
+
+    @Test
+    void floatsAreWrittenAsDoubles() throws IOException {
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream();
+        CborWriter writer = new CborWriter(cbor);
+
+        writer.beginArray().value(1.5f).value(-0.25f).endArray().flush();
+
+        assertEquals(JsonParser.parseString("[1.5,-0.25]"), CborDecoder.decode(cbor.toByteArray()));
+    }
+
+    //
+    // the media, iTunes, enclosure, URL and people fields are written by Gson's model adapters, through JsonWriter
+    // methods that CborWriter must override; make sure the shape under test actually reaches them
+    //
+    private static void assertModelFieldsPresent(SyntheticFeeds.Shape shape, JsonArray posts) {
+        assertEquals(POST_COUNT, posts.size());
+        JsonObject post = posts.get(0).getAsJsonObject();
+        assertTrue(post.has("postTitle"));
+        assertTrue(post.has("publishTimestamp"));
+        if (shape == SyntheticFeeds.Shape.MEDIA_HEAVY) {
+            assertTrue(post.getAsJsonObject("postMedia").size() > 0);
+            assertTrue(post.getAsJsonArray("enclosures").size() > 0);
+            assertTrue(post.getAsJsonArray("postUrls").size() > 0);
+            assertTrue(post.getAsJsonArray("postContents").size() > 0);
+        } else if (shape == SyntheticFeeds.Shape.ITUNES_HEAVY) {
+            assertTrue(post.getAsJsonObject("postITunes").size() > 0);
+            assertTrue(post.getAsJsonArray("authors").size() > 0);
+            assertTrue(post.getAsJsonArray("contributors").size() > 0);
+        }
+    }
+
+    private static String renderJson(SyntheticFeeds.Shape shape) throws IOException {
+        JSONPublisher publisher = TestPublishers.publisher(TestPublishers.configProps());
+        StringWriter json = new StringWriter();
+        publisher.renderFeed(SyntheticFeeds.queueDefinition(1L), SyntheticFeeds.stagingPosts(1L, POST_COUNT, shape), PUB_DATE, json);
+        return json.toString();
+    }
+
+    /**
+     * Decodes the subset of CBOR that CborWriter produces (integers, text, indefinite-length arrays and maps,
+     * booleans, null and doubles) into a JSON tree.
+     */
+    private static final class CborDecoder {
+
+        private final ByteBuffer in;
+
+        private CborDecoder(byte[] bytes) {
+            this.in = ByteBuffer.wrap(bytes);
+        }
+
+        static JsonElement decode(byte[] bytes) {
+            CborDecoder decoder = new CborDecoder(bytes);
+            JsonElement element = decoder.next();
+            assertFalse(decoder.in.hasRemaining(), "trailing bytes after the CBOR data item");
+            return element;
+        }
+
+        private JsonElement next() {
+            int initial = in.get() & 0xff;
+            int major = initial >>> 5;
+            int info = initial & 0x1f;
+            return switch (major) {
+                case 0 -> new JsonPrimitive(argument(info));
+                case 1 -> new JsonPrimitive(-1L - argument(info));
+                case 3 -> new JsonPrimitive(text(info));
+                case 4 -> array(info);
+                case 5 -> map(info);
+                case 7 -> simple(info);
+                default -> fail("Unexpected CBOR major type " + major);
+            };
+        }
+
+        private long argument(int info) {
+            return switch (info) {
+                case 24 -> in.get() & 0xffL;
+                case 25 -> in.getShort() & 0xffffL;
+                case 26 -> in.getInt() & 0xffffffffL;
+                case 27 -> in.getLong();
+                default -> {
+                    assertTrue(info < 24, "Unexpected CBOR additional information " + info);
+                    yield info;
+                }
+            };
+        }
+
+        private String text(int info) {
+            byte[] utf8 = new byte[Math.toIntExact(argument(info))];
+            in.get(utf8);
+            return new String(utf8, UTF_8);
+        }
+
+        private JsonArray array(int info) {
+            assertEquals(31, info, "CborWriter writes indefinite-length arrays");
+            JsonArray array = new JsonArray();
+            while (!isBreak()) {
+                array.add(next());
+            }
+            return array;
+        }
+
+        private JsonObject map(int info) {
+            assertEquals(31, info, "CborWriter writes indefinite-length maps");
+            JsonObject object = new JsonObject();
+            while (!isBreak()) {
+                JsonElement name = next();
+                object.add(name.getAsString(), next());
+            }
+            return object;
+        }
+
+        private JsonElement simple(int info) {
+            return switch (info) {
+                case 20 -> new JsonPrimitive(false);
+                case 21 -> new JsonPrimitive(true);
+                case 22 -> JsonNull.INSTANCE;
+                case 27 -> new JsonPrimitive(in.getDouble());
+                default -> fail("Unexpected CBOR simple value " + info);
+            };
+        }
+
+        private boolean isBreak() {
+            if ((in.get(in.position()) & 0xff) == 0xff) {
+                in.get();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.lostsidewalk.buffy.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compresses a synthetic feed at each compression level, and checks that out-of-range levels are rejected.
+ */
+class FeedCompressorTest {
+
+    private static final String PAYLOAD = "{\"feed\":{\"title\":\"Caf\u00e9\"},\"posts\":[" + "{\"postTitle\":\"T\"},".repeat(100) + "{}]}";
+
+    @Test
+    void variantsDecompressToThePayloadAtEveryLevel() throws IOException {
+        for (int compressionLevel = -1; compressionLevel <= 9; compressionLevel++) {
+            FeedCompressor feedCompressor = new FeedCompressor(compressionLevel);
+
+            Map<CompressionFormat, byte[]> variants = feedCompressor.compress(PAYLOAD, List.of(CompressionFormat.values()));
+
+            assertEquals(PAYLOAD, new String(decompress(new GZIPInputStream(new ByteArrayInputStream(variants.get(CompressionFormat.GZIP)))), UTF_8));
+            assertEquals(PAYLOAD, new String(decompress(new InflaterInputStream(new ByteArrayInputStream(variants.get(CompressionFormat.DEFLATE)))), UTF_8));
+        }
+    }
+
+    @Test
+    void outOfRangeLevelsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FeedCompressor(-2));
+        assertThrows(IllegalArgumentException.class, () -> new FeedCompressor(10));
+        assertThrows(IllegalArgumentException.class, () -> TestPublishers.configProps().setCompressionLevel(10));
+    }
+
+    @Test
+    void outOfRangeLevelsFailBinding() {
+        Properties properties = TestPublishers.bundledProperties();
+        properties.setProperty("json.publisher.compression-level", "10");
+
+        assertThrows(RuntimeException.class, () -> TestPublishers.bind(properties));
+    }
+
+    private static byte[] decompress(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
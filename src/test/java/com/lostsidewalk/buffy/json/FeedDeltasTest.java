@@ -0,0 +1,104 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.lostsidewalk.buffy.post.StagingPost;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records publications of synthetic feeds, and checks the versions of post ids that deltas are made of.
+ */
+class FeedDeltasTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static final String TRANSPORT_IDENT = "feed";
+
+    @Test
+    void firstPublicationIsTheBaseline() {
+        FeedDeltas feedDeltas = new FeedDeltas(2, 10);
+
+        FeedDeltas.Delta delta = feedDeltas.record(TRANSPORT_IDENT, SyntheticFeeds.stagingPosts(1L, 5, SyntheticFeeds.Shape.SMALL));
+
+        assertFalse(delta.reset());
+        assertEquals(delta.since(), delta.cursor());
+        assertTrue(delta.versions().isEmpty());
+    }
+
+    @Test
+    void versionsHoldTheIdsOfNewAndUpdatedPosts() {
+        FeedDeltas feedDeltas = new FeedDeltas(2, 10);
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 5, SyntheticFeeds.Shape.SMALL);
+        long baseline = feedDeltas.record(TRANSPORT_IDENT, stagingPosts).cursor();
+        assertTrue(feedDeltas.record(TRANSPORT_IDENT, stagingPosts).versions().isEmpty());
+
+        List<StagingPost> updated = new ArrayList<>(SyntheticFeeds.stagingPosts(1L, 7, SyntheticFeeds.Shape.SMALL));
+        StagingPost updatedPost = updated(updated.get(2));
+        updated.set(2, updatedPost);
+        FeedDeltas.Delta delta = feedDeltas.record(TRANSPORT_IDENT, updated);
+
+        assertEquals(1, delta.versions().size());
+        long[] expectedIds = {updatedPost.getId(), updated.get(5).getId(), updated.get(6).getId()};
+        Arrays.sort(expectedIds);
+        assertArrayEquals(expectedIds, delta.versions().get(0).postIds());
+        assertEquals(delta, feedDeltas.since(TRANSPORT_IDENT, baseline));
+        assertTrue(feedDeltas.since(TRANSPORT_IDENT, delta.cursor()).versions().isEmpty());
+    }
+
+    @Test
+    void cursorsBeforeTheWindowAreReset() {
+        FeedDeltas feedDeltas = new FeedDeltas(2, 10);
+        long baseline = feedDeltas.record(TRANSPORT_IDENT, SyntheticFeeds.stagingPosts(1L, 1, SyntheticFeeds.Shape.SMALL)).cursor();
+        for (int postCount = 2; postCount <= 4; postCount++) {
+            feedDeltas.record(TRANSPORT_IDENT, SyntheticFeeds.stagingPosts(1L, postCount, SyntheticFeeds.Shape.SMALL));
+        }
+
+        FeedDeltas.Delta delta = feedDeltas.since(TRANSPORT_IDENT, baseline);
+
+        assertTrue(delta.reset());
+        assertTrue(delta.versions().isEmpty());
+        assertEquals(2, feedDeltas.since(TRANSPORT_IDENT, delta.since()).versions().size());
+    }
+
+    @Test
+    void leastRecentlyPublishedFeedsAreForgotten() {
+        FeedDeltas feedDeltas = new FeedDeltas(2, 2);
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 5, SyntheticFeeds.Shape.SMALL);
+        long cursor = feedDeltas.record(TRANSPORT_IDENT, stagingPosts).cursor();
+
+        feedDeltas.record("other1", stagingPosts);
+        assertNotNull(feedDeltas.since(TRANSPORT_IDENT, cursor));
+        feedDeltas.record("other2", stagingPosts);
+        assertNull(feedDeltas.since("other1", cursor));
+        feedDeltas.record("other3", stagingPosts);
+
+        assertNull(feedDeltas.since(TRANSPORT_IDENT, cursor));
+        FeedDeltas.Delta delta = feedDeltas.record(TRANSPORT_IDENT, stagingPosts);
+        assertTrue(feedDeltas.since(TRANSPORT_IDENT, cursor).reset());
+        assertTrue(delta.versions().isEmpty());
+    }
+
+    @Test
+    void disabledWithoutAWindow() {
+        FeedDeltas feedDeltas = new FeedDeltas(0, 10);
+
+        assertNull(feedDeltas.record(TRANSPORT_IDENT, SyntheticFeeds.stagingPosts(1L, 5, SyntheticFeeds.Shape.SMALL)));
+        assertNull(feedDeltas.since(TRANSPORT_IDENT, 0L));
+    }
+
+    //
+    // the given post, updated an hour later
+    //
+    private static StagingPost updated(StagingPost stagingPost) {
+        JsonObject obj = GSON.toJsonTree(stagingPost).getAsJsonObject();
+        obj.add("lastUpdatedTimestamp", GSON.toJsonTree(new Date(stagingPost.getLastUpdatedTimestamp().getTime() + 3_600_000L)));
+        return GSON.fromJson(obj, StagingPost.class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.lostsidewalk.buffy.json;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Digests payloads that differ in and outside their publication dates, and checks which transport idents are
+ * tracked once more than the configured number have been written.
+ */
+class FeedDigestsTest {
+
+    private static final String FEED = "{\"feed\":{\"title\":\"T\",\"pubDate\":\"%s\"},\"posts\":[%s]}";
+
+    @Test
+    void publicationDateIsNotDigested() {
+        String eTag = FeedDigests.computeETag(String.format(FEED, "Jan 1, 2023, 12:00:00 AM", "1"));
+
+        assertEquals(eTag, FeedDigests.computeETag(String.format(FEED, "Jan 2, 2023, 12:00:00 AM", "1")));
+        assertNotEquals(eTag, FeedDigests.computeETag(String.format(FEED, "Jan 1, 2023, 12:00:00 AM", "2")));
+    }
+
+    @Test
+    void leastRecentlyUsedDigestsAreForgotten() {
+        FeedDigests feedDigests = new FeedDigests(2);
+        feedDigests.recordPublished("a", "\"1\"");
+        feedDigests.recordPublished("b", "\"2\"");
+        assertTrue(feedDigests.isUnchanged("a", "\"1\""));
+
+        feedDigests.recordPublished("c", "\"3\"");
+
+        assertEquals("\"1\"", feedDigests.getETag("a"));
+        assertNull(feedDigests.getETag("b"));
+        assertFalse(feedDigests.isUnchanged("b", "\"2\""));
+        assertEquals("\"3\"", feedDigests.getETag("c"));
+    }
+
+    @Test
+    void forgottenDigestsAreNotUnchanged() {
+        FeedDigests feedDigests = new FeedDigests(2);
+        feedDigests.recordPublished("a", "\"1\"");
+
+        feedDigests.forget("a");
+
+        assertNull(feedDigests.getETag("a"));
+        assertFalse(feedDigests.isUnchanged("a", "\"1\""));
+    }
+
+    @Test
+    void disabledWithoutASize() {
+        FeedDigests feedDigests = new FeedDigests(0);
+
+        feedDigests.recordPublished("a", "\"1\"");
+
+        assertNull(feedDigests.getETag("a"));
+    }
+}
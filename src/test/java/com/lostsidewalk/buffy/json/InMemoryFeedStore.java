@@ -0,0 +1,47 @@
+package com.lostsidewalk.buffy.json;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link FeedStore} that keeps the latest document per transport ident in memory, after an artificial latency
+ * standing in for the database round trip.
+ */
+final class InMemoryFeedStore implements FeedStore {
+
+    private final long latencyNanos;
+
+    private final Map<String, String> documents = new ConcurrentHashMap<>(1024);
+
+    private final LongAdder writeCount = new LongAdder();
+
+    private final LongAdder writtenChars = new LongAdder();
+
+    InMemoryFeedStore(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+    @Override
+    public void putFeed(String transportIdent, String document) {
+        if (latencyNanos > 0L) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        documents.put(transportIdent, document);
+        writeCount.increment();
+        writtenChars.add(document.length());
+    }
+
+    long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    long getWrittenChars() {
+        return writtenChars.sum();
+    }
+
+    int size() {
+        return documents.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link QueueDefinitionLookup} over queue definitions held in memory, answering after an artificial latency
+ * standing in for the database round trip.
+ */
+final class InMemoryQueueDefinitionLookup implements QueueDefinitionLookup {
+
+    private final long latencyNanos;
+
+    private final Map<Long, QueueDefinition> queueDefinitions = new ConcurrentHashMap<>(1024);
+
+    private final LongAdder lookupCount = new LongAdder();
+
+    private final LongAdder userLookupCount = new LongAdder();
+
+    InMemoryQueueDefinitionLookup(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+    void add(QueueDefinition queueDefinition) {
+        queueDefinitions.put(queueDefinition.getId(), queueDefinition);
+    }
+
+    @Override
+    public QueueDefinition findByQueueId(String username, Long queueId) {
+        simulateLatency();
+        QueueDefinition queueDefinition = queueDefinitions.get(queueId);
+        return queueDefinition != null && username.equals(queueDefinition.getUsername()) ? queueDefinition : null;
+    }
+
+    @Override
+    public List<QueueDefinition> findByUser(String username) {
+        simulateLatency();
+        userLookupCount.increment();
+        List<QueueDefinition> userQueueDefinitions = new ArrayList<>(queueDefinitions.size());
+        for (QueueDefinition queueDefinition : queueDefinitions.values()) {
+            if (username.equals(queueDefinition.getUsername())) {
+                userQueueDefinitions.add(queueDefinition);
+            }
+        }
+        return userQueueDefinitions;
+    }
+
+    private void simulateLatency() {
+        lookupCount.increment();
+        if (latencyNanos > 0L) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    long getLookupCount() {
+        return lookupCount.sum();
+    }
+
+    long getUserLookupCount() {
+        return userLookupCount.sum();
+    }
+}
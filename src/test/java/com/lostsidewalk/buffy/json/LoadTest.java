@@ -0,0 +1,319 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.lostsidewalk.buffy.publisher.Publisher.PubFormat.JSON;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Offline load test of the publisher.  A JSONPublisher is wired against in-memory stand-ins for the rendered feed
+ * store and the queue definition lookup, each with an artificial latency, and a pool of driver threads replays
+ * publishes and previews of synthetic queues.  Queue sizes follow a bounded Pareto distribution (many small
+ * queues, a few very large ones), post shapes are mixed, and each publish rolls new posts into its queue at a
+ * configurable rate, so the post fragment cache sees realistic churn.  After a warm-up phase, throughput, latency
+ * percentiles, the allocation rate of all threads and GC activity are reported.
+ * <p>
+ * Settings are read from system properties; run with {@code ./gradlew loadTest}, overriding e.g.
+ * {@code -Pload.threads=32 -Pload.storeLatencyMicros=5000}.  The publisher is configured from the bundled
+ * application.properties, bound as Spring Boot would; any of its settings can be overridden in the same way, e.g.
+ * {@code -Pjson.publisher.compression-formats=gzip}.
+ */
+public final class LoadTest {
+
+    private static final String USERNAME = "benchmark";
+
+    private static final int PREVIEW_POST_COUNT = 25;
+
+    private final int threads = Integer.getInteger("load.threads", Runtime.getRuntime().availableProcessors());
+
+    private final int queueCount = Integer.getInteger("load.queues", 200);
+
+    private final int minPosts = Integer.getInteger("load.minPosts", 10);
+
+    private final int maxPosts = Integer.getInteger("load.maxPosts", 5000);
+
+    private final double postCountAlpha = Double.parseDouble(System.getProperty("load.postCountAlpha", "1.2"));
+
+    private final double previewRatio = Double.parseDouble(System.getProperty("load.previewRatio", "0.2"));
+
+    private final double newPostRatio = Double.parseDouble(System.getProperty("load.newPostRatio", "0.3"));
+
+    private final Duration warmUp = Duration.ofSeconds(Long.getLong("load.warmUpSeconds", 10L));
+
+    private final Duration measurement = Duration.ofSeconds(Long.getLong("load.durationSeconds", 30L));
+
+    private final long storeLatencyMicros = Long.getLong("load.storeLatencyMicros", 2000L);
+
+    private final long lookupLatencyMicros = Long.getLong("load.lookupLatencyMicros", 1000L);
+
+    private final InMemoryFeedStore feedStore = new InMemoryFeedStore(MICROSECONDS.toNanos(storeLatencyMicros));
+
+    private final InMemoryQueueDefinitionLookup queueDefinitionLookup = new InMemoryQueueDefinitionLookup(MICROSECONDS.toNanos(lookupLatencyMicros));
+
+    private final List<QueueLoad> queueLoads = new ArrayList<>(queueCount);
+
+    private final JSONPublisher jsonPublisher = newPublisher();
+
+    private volatile long measureStartNanos;
+
+    private volatile long endNanos;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new LoadTest().run();
+    }
+
+    private void run() throws InterruptedException {
+        generateQueues();
+        System.out.printf("Load test: threads=%d, queues=%d, posts=%d..%d (alpha=%.2f), previewRatio=%.2f, newPostRatio=%.2f, " +
+                        "storeLatency=%dus, lookupLatency=%dus, warmUp=%ds, duration=%ds%n",
+                threads, queueCount, minPosts, maxPosts, postCountAlpha, previewRatio, newPostRatio,
+                storeLatencyMicros, lookupLatencyMicros, warmUp.toSeconds(), measurement.toSeconds());
+
+        long startNanos = System.nanoTime();
+        measureStartNanos = startNanos + warmUp.toNanos();
+        endNanos = measureStartNanos + measurement.toNanos();
+        List<Driver> drivers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Driver driver = new Driver();
+            driver.thread = new Thread(driver, "load-driver-" + i);
+            drivers.add(driver);
+            driver.thread.start();
+        }
+        sleepUntil(measureStartNanos);
+        Map<Long, Long> allocatedBefore = allocatedBytesByThread();
+        long[] gcBefore = gcCountAndTime();
+        long storeWritesBefore = feedStore.getWriteCount();
+        long storeCharsBefore = feedStore.getWrittenChars();
+        sleepUntil(endNanos);
+        Map<Long, Long> allocatedAfter = allocatedBytesByThread();
+        long[] gcAfter = gcCountAndTime();
+        for (Driver driver : drivers) {
+            driver.thread.join();
+        }
+
+        double seconds = measurement.toNanos() / 1.0e9;
+        LatencyLog publishes = new LatencyLog();
+        LatencyLog previews = new LatencyLog();
+        long failures = 0L;
+        for (Driver driver : drivers) {
+            publishes.addAll(driver.publishes);
+            previews.addAll(driver.previews);
+            failures += driver.failures;
+        }
+        report("publishFeed", publishes, seconds);
+        report("doPreview", previews, seconds);
+        long allocatedBytes = 0L;
+        for (Map.Entry<Long, Long> e : allocatedAfter.entrySet()) {
+            allocatedBytes += e.getValue() - allocatedBefore.getOrDefault(e.getKey(), 0L);
+        }
+        System.out.printf("allocation: %.1f MB/s (all threads)%n", allocatedBytes / seconds / (1024.0 * 1024.0));
+        System.out.printf("gc: %d collections, %d ms%n", gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+        System.out.printf("store: %d writes, %.1f MB written, %d documents; lookups: %d; failures: %d%n",
+                feedStore.getWriteCount() - storeWritesBefore,
+                (feedStore.getWrittenChars() - storeCharsBefore) / (1024.0 * 1024.0),
+                feedStore.size(), queueDefinitionLookup.getLookupCount(), failures);
+    }
+
+    //
+    // wired as the Spring configuration would, with the settings of the bundled application.properties, overridden
+    // by any json.publisher system properties
+    //
+    private JSONPublisher newPublisher() {
+        Properties properties = TestPublishers.bundledProperties();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("json.publisher.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        JSONPublisherConfigProps configProps = TestPublishers.bind(properties);
+        System.out.println("Publisher: " + configProps);
+        JSONPublisher publisher = TestPublishers.publisher(configProps);
+        publisher.queueDefinitionLookup = queueDefinitionLookup;
+        publisher.feedStore = feedStore;
+        publisher.queueDefinitionCache = new QueueDefinitionCache(configProps.getQueueDefinitionCacheTtl(), configProps.getQueueDefinitionCacheMaxSize());
+        publisher.previewCache = new PreviewCache(configProps.getPreviewCacheTtl(), configProps.getPreviewCacheMaxSize());
+        publisher.feedCompressor = new FeedCompressor(configProps.getCompressionLevel());
+        publisher.feedDeltas = new FeedDeltas(configProps.getDeltaWindowSize(), configProps.getDeltaMaxFeeds());
+        return publisher;
+    }
+
+    private void generateQueues() {
+        Random random = new Random(42L);
+        SyntheticFeeds.Shape[] shapes = SyntheticFeeds.Shape.values();
+        for (long queueId = 1L; queueId <= queueCount; queueId++) {
+            double u = random.nextDouble();
+            SyntheticFeeds.Shape shape = u < 0.7 ? shapes[0] : u < 0.9 ? shapes[1] : shapes[2];
+            QueueLoad queueLoad = new QueueLoad(SyntheticFeeds.queueDefinition(queueId), shape, boundedPareto(random));
+            queueDefinitionLookup.add(queueLoad.queueDefinition);
+            queueLoads.add(queueLoad);
+        }
+    }
+
+    private int boundedPareto(Random random) {
+        double ratio = Math.pow((double) minPosts / maxPosts, postCountAlpha);
+        double x = minPosts / Math.pow(1.0 - random.nextDouble() * (1.0 - ratio), 1.0 / postCountAlpha);
+        return (int) Math.min(maxPosts, Math.round(x));
+    }
+
+    private static void report(String operation, LatencyLog latencies, double seconds) {
+        long[] sorted = latencies.sorted();
+        if (sorted.length == 0) {
+            System.out.printf("%-12s ops=0%n", operation);
+            return;
+        }
+        System.out.printf("%-12s ops=%d  throughput=%.1f/s  p50=%.3fms  p99=%.3fms  p999=%.3fms  max=%.3fms%n",
+                operation, sorted.length, sorted.length / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[sorted.length - 1] / 1.0e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1.0e6;
+    }
+
+    private static Map<Long, Long> allocatedBytesByThread() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> allocated = new HashMap<>(64);
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean) {
+            long[] threadIds = sunThreadMXBean.getAllThreadIds();
+            long[] allocatedBytes = sunThreadMXBean.getThreadAllocatedBytes(threadIds);
+            for (int i = 0; i < threadIds.length; i++) {
+                if (allocatedBytes[i] >= 0L) {
+                    allocated.put(threadIds[i], allocatedBytes[i]);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    private static long[] gcCountAndTime() {
+        long count = 0L;
+        long timeMillis = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0L, gc.getCollectionCount());
+            timeMillis += Math.max(0L, gc.getCollectionTime());
+        }
+        return new long[]{count, timeMillis};
+    }
+
+    private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0L) {
+            Thread.sleep(Math.max(1L, Math.min(SECONDS.toMillis(1L), remainingNanos / 1_000_000L)));
+        }
+    }
+
+    private final class Driver implements Runnable {
+
+        private final LatencyLog publishes = new LatencyLog();
+
+        private final LatencyLog previews = new LatencyLog();
+
+        private long failures;
+
+        private Thread thread;
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < endNanos) {
+                QueueLoad queueLoad = queueLoads.get(random.nextInt(queueLoads.size()));
+                boolean preview = random.nextDouble() < previewRatio;
+                List<StagingPost> stagingPosts = preview ? queueLoad.current() : queueLoad.advance(random, newPostRatio);
+                long opStart = System.nanoTime();
+                try {
+                    if (preview) {
+                        jsonPublisher.doPreview(USERNAME, stagingPosts.subList(0, Math.min(PREVIEW_POST_COUNT, stagingPosts.size())), JSON);
+                    } else {
+                        jsonPublisher.publishFeed(queueLoad.queueDefinition, stagingPosts, new Date());
+                    }
+                } catch (DataAccessException | RuntimeException e) {
+                    failures++;
+                }
+                long opEnd = System.nanoTime();
+                if (now >= measureStartNanos) {
+                    (preview ? previews : publishes).add(opEnd - opStart);
+                }
+            }
+        }
+    }
+
+    //
+    // a synthetic queue whose posts roll over as new posts arrive; new posts are prepended and the oldest dropped,
+    // so the queue keeps its size
+    //
+    private static final class QueueLoad {
+
+        private final QueueDefinition queueDefinition;
+
+        private final SyntheticFeeds.Shape shape;
+
+        private List<StagingPost> stagingPosts;
+
+        private int nextIndex;
+
+        private QueueLoad(QueueDefinition queueDefinition, SyntheticFeeds.Shape shape, int postCount) {
+            this.queueDefinition = queueDefinition;
+            this.shape = shape;
+            this.stagingPosts = SyntheticFeeds.stagingPosts(queueDefinition.getId(), postCount, shape);
+            this.nextIndex = postCount;
+        }
+
+        private synchronized List<StagingPost> current() {
+            return stagingPosts;
+        }
+
+        private synchronized List<StagingPost> advance(Random random, double newPostRatio) {
+            if (random.nextDouble() < newPostRatio) {
+                int newPostCount = Math.min(stagingPosts.size(), 1 + random.nextInt(3));
+                List<StagingPost> advanced = new ArrayList<>(stagingPosts.size());
+                for (int i = 0; i < newPostCount; i++) {
+                    advanced.add(SyntheticFeeds.stagingPost(queueDefinition.getId(), nextIndex++, shape));
+                }
+                advanced.addAll(stagingPosts.subList(0, stagingPosts.size() - newPostCount));
+                stagingPosts = advanced;
+            }
+            return stagingPosts;
+        }
+    }
+
+    private static final class LatencyLog {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private void addAll(LatencyLog other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
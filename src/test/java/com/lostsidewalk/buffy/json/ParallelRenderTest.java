@@ -0,0 +1,90 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.lostsidewalk.buffy.post.StagingPost;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the parallel rendering of a posts array is byte-identical to the serial rendering, with and without
+ * the fragment cache, on first render and on republish, and under render budgets.
+ */
+class ParallelRenderTest {
+
+    private static final int POST_COUNT = 1000;
+
+    @ParameterizedTest
+    @EnumSource(SyntheticFeeds.Shape.class)
+    void parallelMatchesSerial(SyntheticFeeds.Shape shape) throws IOException {
+        List<StagingPost> stagingPosts = stagingPosts(shape);
+        for (int postCacheMaxSize : new int[]{0, 100, POST_COUNT * 2}) {
+            PostsArrayBuilder serial = postsArrayBuilder(0, postCacheMaxSize);
+            PostsArrayBuilder parallel = postsArrayBuilder(1, postCacheMaxSize);
+            // the second pass is a republish, served from the cache where it is enabled
+            for (int pass = 0; pass < 2; pass++) {
+                String message = "postCacheMaxSize=" + postCacheMaxSize + ", pass=" + pass;
+                assertEquals(render(serial, stagingPosts, RenderBudget.unlimited()), render(parallel, stagingPosts, RenderBudget.unlimited()), message);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BudgetPolicy.class)
+    void parallelMatchesSerialUnderBudget(BudgetPolicy policy) throws IOException {
+        List<StagingPost> stagingPosts = stagingPosts(SyntheticFeeds.Shape.MEDIA_HEAVY);
+        PostsArrayBuilder serial = postsArrayBuilder(0, POST_COUNT);
+        PostsArrayBuilder parallel = postsArrayBuilder(1, POST_COUNT);
+        for (RenderBudget[] budgets : new RenderBudget[][]{
+                {new RenderBudget(0, 200_000L, policy), new RenderBudget(0, 200_000L, policy)},
+                {new RenderBudget(0, 3_000_000L, policy), new RenderBudget(0, 3_000_000L, policy)},
+                {new RenderBudget(250, 0L, policy), new RenderBudget(250, 0L, policy)}}) {
+            String serialOutput = renderOrFailure(serial, stagingPosts, budgets[0]);
+            String parallelOutput = renderOrFailure(parallel, stagingPosts, budgets[1]);
+
+            assertEquals(serialOutput, parallelOutput, budgets[0].toString());
+            assertEquals(budgets[0].getPostCount(), budgets[1].getPostCount());
+            assertEquals(budgets[0].getDegradedPostCount(), budgets[1].getDegradedPostCount());
+            assertEquals(budgets[0].isTruncated(), budgets[1].isTruncated());
+        }
+    }
+
+    //
+    // the given shape, followed by small posts
+    //
+    private static List<StagingPost> stagingPosts(SyntheticFeeds.Shape shape) {
+        List<StagingPost> stagingPosts = new ArrayList<>(SyntheticFeeds.stagingPosts(1L, POST_COUNT / 2, shape));
+        stagingPosts.addAll(SyntheticFeeds.stagingPosts(2L, POST_COUNT / 2, SyntheticFeeds.Shape.SMALL));
+        return stagingPosts;
+    }
+
+    private static PostsArrayBuilder postsArrayBuilder(int parallelRenderThreshold, int postCacheMaxSize) {
+        JSONPublisherConfigProps configProps = TestPublishers.configProps();
+        configProps.setParallelRenderThreshold(parallelRenderThreshold);
+        configProps.setParallelRenderChunkSize(7);
+        configProps.setPostCacheMaxSize(postCacheMaxSize);
+        return new PostsArrayBuilder(configProps);
+    }
+
+    private static String render(PostsArrayBuilder postsArrayBuilder, List<StagingPost> stagingPosts, RenderBudget budget) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(budget.track(out));
+        postsArrayBuilder.writePostsArray(writer, stagingPosts, budget, PostProjection.FULL);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static String renderOrFailure(PostsArrayBuilder postsArrayBuilder, List<StagingPost> stagingPosts, RenderBudget budget) throws IOException {
+        try {
+            return render(postsArrayBuilder, stagingPosts, budget);
+        } catch (RenderBudgetExceededException e) {
+            return e.getMessage();
+        }
+    }
+}
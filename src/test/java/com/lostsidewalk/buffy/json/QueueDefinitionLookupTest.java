@@ -0,0 +1,94 @@
+package com.lostsidewalk.buffy.json;
+
+import com.lostsidewalk.buffy.DataAccessException;
+import com.lostsidewalk.buffy.post.StagingPost;
+import com.lostsidewalk.buffy.publisher.FeedPreview;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.lostsidewalk.buffy.publisher.Publisher.PubFormat.JSON;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Previews feeds of a user with many queues, and checks whether the queue definitions that are not cached are
+ * looked up one by one or all at once.
+ */
+class QueueDefinitionLookupTest {
+
+    private static final String USERNAME = "benchmark";
+
+    private static final int QUEUE_COUNT = 12;
+
+    private final InMemoryQueueDefinitionLookup queueDefinitionLookup = new InMemoryQueueDefinitionLookup(0L);
+
+    private final JSONPublisher publisher = newPublisher(queueDefinitionLookup);
+
+    QueueDefinitionLookupTest() {
+        for (long queueId = 1L; queueId <= QUEUE_COUNT; queueId++) {
+            queueDefinitionLookup.add(SyntheticFeeds.queueDefinition(queueId));
+        }
+    }
+
+    @Test
+    void fewMissesAreLookedUpByQueueId() throws DataAccessException {
+        assertEquals(3, preview(1L, 3L).size());
+
+        assertEquals(3L, queueDefinitionLookup.getLookupCount());
+        assertEquals(0L, queueDefinitionLookup.getUserLookupCount());
+    }
+
+    @Test
+    void manyMissesAreLookedUpByUser() throws DataAccessException {
+        assertEquals(8, preview(1L, 8L).size());
+
+        assertEquals(1L, queueDefinitionLookup.getLookupCount());
+        assertEquals(1L, queueDefinitionLookup.getUserLookupCount());
+
+        // the user's other queues were cached by the same lookup
+        assertEquals(QUEUE_COUNT, preview(1L, QUEUE_COUNT).size());
+        assertEquals(1L, queueDefinitionLookup.getLookupCount());
+    }
+
+    @Test
+    void knownQueueCountsDecideBetweenLookups() throws DataAccessException {
+        preview(1L, 8L);
+        invalidate(1L, 3L);
+
+        // a quarter of the user's queues are missing
+        assertEquals(3, preview(1L, 3L).size());
+        assertEquals(2L, queueDefinitionLookup.getUserLookupCount());
+
+        invalidate(1L, 2L);
+
+        // less than a quarter are missing
+        assertEquals(2, preview(1L, 2L).size());
+        assertEquals(2L, queueDefinitionLookup.getUserLookupCount());
+        assertEquals(4L, queueDefinitionLookup.getLookupCount());
+    }
+
+    private List<FeedPreview> preview(long firstQueueId, long lastQueueId) throws DataAccessException {
+        List<StagingPost> stagingPosts = new ArrayList<>(8);
+        for (long queueId = firstQueueId; queueId <= lastQueueId; queueId++) {
+            stagingPosts.addAll(SyntheticFeeds.stagingPosts(queueId, 2, SyntheticFeeds.Shape.SMALL));
+        }
+        return publisher.doPreview(USERNAME, stagingPosts, JSON);
+    }
+
+    private void invalidate(long firstQueueId, long lastQueueId) {
+        for (long queueId = firstQueueId; queueId <= lastQueueId; queueId++) {
+            publisher.invalidateQueueDefinition(USERNAME, queueId);
+        }
+    }
+
+    private static JSONPublisher newPublisher(QueueDefinitionLookup queueDefinitionLookup) {
+        JSONPublisherConfigProps configProps = TestPublishers.configProps();
+        JSONPublisher publisher = TestPublishers.publisher(configProps);
+        publisher.queueDefinitionLookup = queueDefinitionLookup;
+        publisher.queueDefinitionCache = new QueueDefinitionCache(Duration.ofMinutes(1L), 1000);
+        publisher.previewCache = new PreviewCache(null, 0);
+        return publisher;
+    }
+}
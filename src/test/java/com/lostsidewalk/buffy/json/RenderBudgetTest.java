@@ -0,0 +1,103 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.lostsidewalk.buffy.post.StagingPost;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders posts arrays under budgets, and checks what was admitted against the sizes of the posts rendered alone.
+ */
+class RenderBudgetTest {
+
+    private final PostsArrayBuilder postsArrayBuilder = new PostsArrayBuilder(TestPublishers.configProps());
+
+    @Test
+    void streamedRenderingMatchesUnlimited() throws IOException {
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 50, SyntheticFeeds.Shape.MEDIA_HEAVY);
+        RenderBudget budget = new RenderBudget(0, 1L << 26, BudgetPolicy.DROP_HEAVY_FIELDS);
+
+        String limited = render(stagingPosts, budget);
+
+        assertEquals(render(stagingPosts, RenderBudget.unlimited()), limited);
+        assertEquals(50, budget.getPostCount());
+        assertFalse(budget.isTruncated());
+    }
+
+    @Test
+    void byteLimitAdmitsExactlyThePostsThatFit() throws IOException {
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 50, SyntheticFeeds.Shape.SMALL);
+        long maxBytes = 5000L;
+        RenderBudget budget = new RenderBudget(0, maxBytes);
+
+        String limited = render(stagingPosts, budget);
+
+        // the opening bracket, then each admitted post preceded by a comma (but the first)
+        long expectedBytes = 1L;
+        int expectedPosts = 0;
+        for (StagingPost stagingPost : stagingPosts) {
+            long postBytes = (expectedPosts == 0 ? 0L : 1L) + utf8Length(render(List.of(stagingPost), RenderBudget.unlimited())) - 2L;
+            if (expectedBytes + postBytes > maxBytes) {
+                break;
+            }
+            expectedBytes += postBytes;
+            expectedPosts++;
+        }
+        assertTrue(budget.isTruncated());
+        assertEquals(expectedPosts, budget.getPostCount());
+        assertEquals(expectedBytes + 1L, utf8Length(limited));
+    }
+
+    @Test
+    void leanFragmentThatFitsIsCountedAsDegraded() throws IOException {
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 10, SyntheticFeeds.Shape.MEDIA_HEAVY);
+        long leanBytes = utf8Length(render(stagingPosts.subList(0, 1), RenderBudget.unlimited(), PostProjection.FULL.withoutHeavyFields()));
+        RenderBudget budget = new RenderBudget(0, leanBytes * 3, BudgetPolicy.DROP_HEAVY_FIELDS);
+
+        render(stagingPosts, budget);
+
+        assertTrue(budget.getPostCount() > 0);
+        assertEquals(budget.getPostCount(), budget.getDegradedPostCount());
+    }
+
+    @Test
+    void leanFragmentThatDoesNotFitIsNotCountedAsDegraded() throws IOException {
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 10, SyntheticFeeds.Shape.MEDIA_HEAVY);
+        RenderBudget budget = new RenderBudget(0, 16L, BudgetPolicy.DROP_HEAVY_FIELDS);
+
+        assertEquals("[]", render(stagingPosts, budget));
+
+        assertTrue(budget.isTruncated());
+        assertEquals(0, budget.getPostCount());
+        assertEquals(0, budget.getDegradedPostCount());
+    }
+
+    @Test
+    void failPolicyAbandonsTheRendering() {
+        List<StagingPost> stagingPosts = SyntheticFeeds.stagingPosts(1L, 10, SyntheticFeeds.Shape.SMALL);
+
+        assertThrows(RenderBudgetExceededException.class, () -> render(stagingPosts, new RenderBudget(5, 0L, BudgetPolicy.FAIL)));
+    }
+
+    private String render(List<StagingPost> stagingPosts, RenderBudget budget) throws IOException {
+        return render(stagingPosts, budget, PostProjection.FULL);
+    }
+
+    private String render(List<StagingPost> stagingPosts, RenderBudget budget, PostProjection projection) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(budget.track(out));
+        postsArrayBuilder.writePostsArray(writer, stagingPosts, budget, projection);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static long utf8Length(String s) {
+        return s.getBytes(UTF_8).length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.lostsidewalk.buffy.json;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.handler.NoUnboundElementsBindHandler;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * Wires publisher components for tests as the Spring configuration would, without a DAO behind them.
+ */
+final class TestPublishers {
+
+    private TestPublishers() {
+    }
+
+    static JSONPublisherConfigProps configProps() {
+        JSONPublisherConfigProps configProps = new JSONPublisherConfigProps();
+        configProps.setChannelLinkTemplate("https://localhost/json/%s");
+        configProps.setChannelImageUrlTemplate("https://localhost/img/%s");
+        configProps.setFeedHeaderCacheMaxSize(100);
+        return configProps;
+    }
+
+    /**
+     * Loads the bundled application.properties.
+     */
+    static Properties bundledProperties() {
+        try {
+            return PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Binds the json.publisher settings in the given properties as Spring Boot would, failing on any setting that
+     * JSONPublisherConfigProps does not declare.
+     */
+    static JSONPublisherConfigProps bind(Properties properties) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(properties));
+        return binder.bind("json.publisher", Bindable.ofInstance(new JSONPublisherConfigProps()), new NoUnboundElementsBindHandler()).get();
+    }
+
+    static JSONPublisher publisher(JSONPublisherConfigProps configProps) {
+        JSONPublisher publisher = new JSONPublisher();
+        publisher.configProps = configProps;
+        publisher.feedObjectBuilder = new FeedObjectBuilder(configProps);
+        publisher.postsArrayBuilder = new PostsArrayBuilder(configProps);
+        publisher.publisherMetrics = new PublisherMetrics(null, JSONPublisher.JSON_PUBLISHER_ID);
+        publisher.feedDigests = new FeedDigests(configProps.getDigestCacheMaxSize());
+        return publisher;
+    }
+}
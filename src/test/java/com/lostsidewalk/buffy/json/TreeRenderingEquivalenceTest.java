@@ -0,0 +1,311 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.lostsidewalk.buffy.post.*;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.Optional.ofNullable;
+import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.time.FastDateFormat.MEDIUM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Renders feeds through the streaming publisher and through the JsonObject tree that the publisher used to build
+ * (reproduced below as it was), and checks that the two are byte-identical.
+ */
+class TreeRenderingEquivalenceTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static final Date PUB_DATE = new Date(1_672_531_200_000L);
+
+    private static final String ESCAPES = "<b>Tom & \"Jerry\"</b> 'quoted' a=b\\c\n\ttab\u2028sep\u2029\u0001\u001f\u007f";
+
+    private static final String NON_ASCII = "Caf\u00e9 \u2014 \u6771\u4eac Zo\u00eb na\u00efve \ud83d\ude00 \u00a0";
+
+    @ParameterizedTest
+    @EnumSource(SyntheticFeeds.Shape.class)
+    void syntheticFeedsMatchTheTree(SyntheticFeeds.Shape shape) throws IOException {
+        assertRenderingsMatch(SyntheticFeeds.queueDefinition(1L), SyntheticFeeds.stagingPosts(1L, 20, shape));
+    }
+
+    @Test
+    void nullsMatchTheTree() throws IOException {
+        assertRenderingsMatch(queueDefinition(null, "  "), List.of(postWithNullFields(), postWithNullsInModels()));
+    }
+
+    @Test
+    void escapesAndNonAsciiMatchTheTree() throws IOException {
+        assertRenderingsMatch(queueDefinition(ESCAPES, NON_ASCII), List.of(postWithText(3L, ESCAPES), postWithText(4L, NON_ASCII)));
+    }
+
+    //
+    // rendered with the fragment and feed header caches on and off, and rendered twice, as a republish is served
+    // from those caches
+    //
+    private static void assertRenderingsMatch(QueueDefinition queueDefinition, List<StagingPost> stagingPosts) throws IOException {
+        String expected = LegacyRenderer.render(TestPublishers.configProps(), queueDefinition, stagingPosts, PUB_DATE);
+        for (int cacheMaxSize : new int[]{0, 100}) {
+            JSONPublisherConfigProps configProps = TestPublishers.configProps();
+            configProps.setPostCacheMaxSize(cacheMaxSize);
+            configProps.setFeedHeaderCacheMaxSize(cacheMaxSize);
+            JSONPublisher publisher = TestPublishers.publisher(configProps);
+            for (int pass = 0; pass < 2; pass++) {
+                StringWriter out = new StringWriter();
+                publisher.renderFeed(queueDefinition, stagingPosts, PUB_DATE, out);
+                assertEquals(expected, out.toString(), "cacheMaxSize=" + cacheMaxSize + ", pass=" + pass);
+            }
+        }
+    }
+
+    private static QueueDefinition queueDefinition(String title, String description) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", 7L);
+        obj.addProperty("ident", "queue-7");
+        obj.addProperty("title", title);
+        obj.addProperty("description", description);
+        obj.addProperty("language", "");
+        obj.addProperty("transportIdent", "transport-7");
+        obj.addProperty("username", "test");
+        return GSON.fromJson(obj, QueueDefinition.class);
+    }
+
+    //
+    // no URL and no publish timestamp, which the tree rendered as explicit nulls, and blank optional strings
+    //
+    private static StagingPost postWithNullFields() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", 1L);
+        obj.add("postTitle", contentObject("text", "Untitled"));
+        obj.addProperty("postImgUrl", "  ");
+        obj.addProperty("postComment", "");
+        obj.add("postContents", new JsonArray());
+        return GSON.fromJson(obj, StagingPost.class);
+    }
+
+    //
+    // null members within the nested models, which Gson's adapters omit, and null list elements, which they keep
+    //
+    private static StagingPost postWithNullsInModels() {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", 2L);
+        obj.add("postTitle", contentObject(null, "Title"));
+        obj.add("postDesc", contentObject("text", null));
+        JsonArray contents = new JsonArray();
+        contents.add(contentObject(null, "Content"));
+        contents.add(JsonNull.INSTANCE);
+        obj.add("postContents", contents);
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("title", "Media");
+        JsonObject media = new JsonObject();
+        media.add("postMediaMetadata", metadata);
+        obj.add("postMedia", media);
+        JsonObject iTunes = new JsonObject();
+        iTunes.addProperty("title", "Episode");
+        obj.add("postITunes", iTunes);
+        obj.addProperty("postUrl", "https://example.com/posts/2");
+        JsonObject url = new JsonObject();
+        url.addProperty("href", "https://example.com/posts/2/alt");
+        JsonArray urls = new JsonArray();
+        urls.add(url);
+        obj.add("postUrls", urls);
+        JsonObject person = new JsonObject();
+        person.addProperty("name", "Author");
+        JsonArray people = new JsonArray();
+        people.add(person);
+        obj.add("authors", people);
+        JsonArray categories = new JsonArray();
+        categories.add("first");
+        categories.add(JsonNull.INSTANCE);
+        categories.add("third");
+        obj.add("postCategories", categories);
+        JsonObject enclosure = new JsonObject();
+        enclosure.addProperty("url", "https://cdn.example.com/2.mp3");
+        JsonArray enclosures = new JsonArray();
+        enclosures.add(enclosure);
+        obj.add("enclosures", enclosures);
+        obj.add("expirationTimestamp", GSON.toJsonTree(PUB_DATE));
+        return GSON.fromJson(obj, StagingPost.class);
+    }
+
+    private static StagingPost postWithText(long id, String text) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("id", id);
+        obj.add("postTitle", contentObject("text", text));
+        obj.add("postDesc", contentObject("html", text));
+        JsonArray contents = new JsonArray();
+        contents.add(contentObject("html", text));
+        obj.add("postContents", contents);
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("title", text);
+        metadata.addProperty("desc", text);
+        JsonObject media = new JsonObject();
+        media.add("postMediaMetadata", metadata);
+        obj.add("postMedia", media);
+        JsonObject iTunes = new JsonObject();
+        iTunes.addProperty("summary", text);
+        obj.add("postITunes", iTunes);
+        obj.addProperty("postUrl", "https://example.com/?q=" + text + "&lang=en");
+        obj.addProperty("postComment", text);
+        obj.addProperty("postRights", text);
+        JsonObject person = new JsonObject();
+        person.addProperty("name", text);
+        JsonArray people = new JsonArray();
+        people.add(person);
+        obj.add("contributors", people);
+        JsonArray categories = new JsonArray();
+        categories.add(text);
+        obj.add("postCategories", categories);
+        obj.add("publishTimestamp", GSON.toJsonTree(PUB_DATE));
+        obj.add("lastUpdatedTimestamp", GSON.toJsonTree(PUB_DATE));
+        return GSON.fromJson(obj, StagingPost.class);
+    }
+
+    private static JsonObject contentObject(String type, String value) {
+        JsonObject obj = new JsonObject();
+        obj.addProperty("type", type);
+        obj.addProperty("value", value);
+        return obj;
+    }
+
+    /**
+     * The feed rendering of the publisher before it was streamed: a JsonObject tree, with the nested models converted
+     * by Gson.toJsonTree, serialized by JsonElement.toString.
+     */
+    private static final class LegacyRenderer {
+
+        private static final FastDateFormat DATE_FORMATTER = FastDateFormat.getDateTimeInstance(MEDIUM, MEDIUM);
+
+        @SuppressWarnings("EmptyClass")
+        private static final Type LIST_OF_POST_PERSON_TYPE = new TypeToken<List<PostPerson>>() {}.getType();
+
+        @SuppressWarnings("EmptyClass")
+        private static final Type LIST_OF_CONTENT_OBJECT_TYPE = new TypeToken<List<ContentObject>>() {}.getType();
+
+        @SuppressWarnings("EmptyClass")
+        private static final Type LIST_OF_STRING_TYPE = new TypeToken<List<String>>() {}.getType();
+
+        @SuppressWarnings("EmptyClass")
+        private static final Type LIST_OF_POST_URL_TYPE = new TypeToken<List<PostUrl>>() {}.getType();
+
+        @SuppressWarnings("EmptyClass")
+        private static final Type LIST_OF_ENCLOSURE_TYPE = new TypeToken<List<PostEnclosure>>() {}.getType();
+
+        private LegacyRenderer() {
+        }
+
+        static String render(JSONPublisherConfigProps configProps, QueueDefinition queueDefinition, Iterable<? extends StagingPost> stagingPosts, Date pubDate) {
+            JsonObject jsonObject = new JsonObject();
+            jsonObject.add("feed", buildFeedObject(configProps, queueDefinition, pubDate));
+            jsonObject.add("posts", buildPostsArray(stagingPosts));
+            return jsonObject.toString();
+        }
+
+        private static JsonElement buildFeedObject(JSONPublisherConfigProps configProps, QueueDefinition queueDefinition, Date pubDate) {
+            JsonObject feedObject = new JsonObject();
+            feedObject.addProperty("ident", queueDefinition.getIdent());
+            if (isNotBlank(queueDefinition.getTitle())) {
+                feedObject.addProperty("title", queueDefinition.getTitle());
+            }
+            if (isNotBlank(queueDefinition.getDescription())) {
+                feedObject.addProperty("description", queueDefinition.getDescription());
+            }
+            if (isNotBlank(queueDefinition.getGenerator())) {
+                feedObject.addProperty("generator", queueDefinition.getGenerator());
+            }
+            if (isNotBlank(queueDefinition.getCopyright())) {
+                feedObject.addProperty("copyright", queueDefinition.getCopyright());
+            }
+            if (isNotBlank(queueDefinition.getLanguage())) {
+                feedObject.addProperty("language", queueDefinition.getLanguage());
+            }
+            feedObject.addProperty("pubDate", DATE_FORMATTER.format(pubDate));
+            feedObject.addProperty("url", String.format(configProps.getChannelLinkTemplate(), queueDefinition.getTransportIdent()));
+            String queueImgTransportIdent = queueDefinition.getQueueImgTransportIdent();
+            if (isNotBlank(queueImgTransportIdent)) {
+                feedObject.addProperty("imgUrl", String.format(configProps.getChannelImageUrlTemplate(), queueImgTransportIdent));
+            }
+            return feedObject;
+        }
+
+        private static JsonElement buildPostsArray(Iterable<? extends StagingPost> stagingPosts) {
+            JsonArray arr = new JsonArray();
+            for (StagingPost stagingPost : stagingPosts) {
+                JsonObject sObj = new JsonObject();
+                ContentObject postTitle = stagingPost.getPostTitle();
+                if (postTitle != null) {
+                    sObj.addProperty("postTitle", postTitle.getValue());
+                }
+                ContentObject postDesc = stagingPost.getPostDesc();
+                if (postDesc != null) {
+                    sObj.addProperty("postDesc", postDesc.getValue());
+                }
+                List<ContentObject> postContents = stagingPost.getPostContents();
+                if (isNotEmpty(postContents)) {
+                    sObj.add("postContents", GSON.toJsonTree(postContents, LIST_OF_CONTENT_OBJECT_TYPE));
+                }
+                PostMedia postMedia = stagingPost.getPostMedia();
+                if (postMedia != null) {
+                    sObj.add("postMedia", GSON.toJsonTree(postMedia, PostMedia.class));
+                }
+                PostITunes postITunes = stagingPost.getPostITunes();
+                if (postITunes != null) {
+                    sObj.add("postITunes", GSON.toJsonTree(postITunes, PostITunes.class));
+                }
+                sObj.addProperty("postUrl", stagingPost.getPostUrl());
+                List<PostUrl> postUrls = stagingPost.getPostUrls();
+                if (isNotEmpty(postUrls)) {
+                    sObj.add("postUrls", GSON.toJsonTree(postUrls, LIST_OF_POST_URL_TYPE));
+                }
+                if (isNotBlank(stagingPost.getPostImgUrl())) {
+                    sObj.addProperty("postImgUrl", stagingPost.getPostImgUrl());
+                }
+                if (isNotBlank(stagingPost.getPostComment())) {
+                    sObj.addProperty("postComment", stagingPost.getPostComment());
+                }
+                if (isNotBlank(stagingPost.getPostRights())) {
+                    sObj.addProperty("postRights", stagingPost.getPostRights());
+                }
+                List<PostPerson> contributors = stagingPost.getContributors();
+                if (isNotEmpty(contributors)) {
+                    sObj.add("contributors", GSON.toJsonTree(contributors, LIST_OF_POST_PERSON_TYPE));
+                }
+                List<PostPerson> authors = stagingPost.getAuthors();
+                if (isNotEmpty(authors)) {
+                    sObj.add("authors", GSON.toJsonTree(authors, LIST_OF_POST_PERSON_TYPE));
+                }
+                List<String> postCategories = stagingPost.getPostCategories();
+                if (isNotEmpty(postCategories)) {
+                    sObj.add("postCategories", GSON.toJsonTree(postCategories, LIST_OF_STRING_TYPE));
+                }
+                sObj.addProperty("publishTimestamp", ofNullable(stagingPost.getPublishTimestamp()).map(DATE_FORMATTER::format).orElse(null));
+                Date expirationTimestamp = stagingPost.getExpirationTimestamp();
+                if (expirationTimestamp != null) {
+                    sObj.addProperty("expirationTimestamp", DATE_FORMATTER.format(expirationTimestamp));
+                }
+                List<PostEnclosure> enclosures = stagingPost.getEnclosures();
+                if (isNotEmpty(enclosures)) {
+                    sObj.add("enclosures", GSON.toJsonTree(enclosures, LIST_OF_ENCLOSURE_TYPE));
+                }
+                Date lastUpdatedTimestamp = stagingPost.getLastUpdatedTimestamp();
+                if (lastUpdatedTimestamp != null) {
+                    sObj.addProperty("lastUpdatedTimestamp", DATE_FORMATTER.format(lastUpdatedTimestamp));
+                }
+                arr.add(sObj);
+            }
+            return arr;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.lostsidewalk.buffy.json;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.lostsidewalk.buffy.publisher.Publisher.PubResult;
+import com.lostsidewalk.buffy.queue.QueueDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Publishes paginated feeds through the write-behind queue, and checks that pages left over from longer renderings
+ * are retired when the rendering that would have retired them is coalesced away or fails to be written.
+ */
+class WriteBehindPaginationTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    private final GatedFeedStore feedStore = new GatedFeedStore();
+
+    private final JSONPublisher publisher = newPublisher(feedStore);
+
+    private final QueueDefinition queueDefinition = SyntheticFeeds.queueDefinition(1L);
+
+    private final String transportIdent = queueDefinition.getTransportIdent();
+
+    @AfterEach
+    void closeQueue() {
+        feedStore.open();
+        publisher.writeBehindQueue.close();
+    }
+
+    @Test
+    void coalescedRenderingsRetireThePagesOfTheRenderingTheyReplace() throws Exception {
+        feedStore.hold();
+        CompletableFuture<Map<String, PubResult>> first = publish(10);
+        feedStore.awaitHeld();
+        CompletableFuture<Map<String, PubResult>> superseded = publish(6);
+        CompletableFuture<Map<String, PubResult>> survivor = publish(4);
+        feedStore.open();
+
+        assertPublished(first);
+        assertPublished(superseded);
+        assertPublished(survivor);
+        assertPage(2, 2, false);
+        for (int pageNumber = 3; pageNumber <= 5; pageNumber++) {
+            assertPage(pageNumber, 0, false);
+        }
+
+        // once the survivor is written, the retired pages and their digests are no longer tracked
+        assertNotNull(publisher.getETag(pageIdent(2)));
+        assertNull(publisher.getETag(pageIdent(5)));
+        int writeCount = feedStore.getWriteCount(pageIdent(5));
+        assertPublished(publish(4));
+        assertEquals(writeCount, feedStore.getWriteCount(pageIdent(5)));
+    }
+
+    @Test
+    void failedWritesLeaveTheirPagesToBeRetiredByTheNextWrite() throws Exception {
+        assertPublished(publish(10));
+        assertPage(5, 2, false);
+
+        feedStore.fail(true);
+        Map<String, PubResult> failed = publish(4).get(10L, SECONDS);
+        assertFalse(failed.get(JSONPublisher.JSON_PUBLISHER_ID).getErrors().isEmpty());
+        feedStore.fail(false);
+        assertPage(5, 2, false);
+
+        assertPublished(publish(4));
+        assertPage(2, 2, false);
+        for (int pageNumber = 3; pageNumber <= 5; pageNumber++) {
+            assertPage(pageNumber, 0, false);
+        }
+    }
+
+    @Test
+    void failedSynchronousWritesLeaveTheirPagesToBeRetiredByTheNextWrite() {
+        publisher.publishFeed(queueDefinition, SyntheticFeeds.stagingPosts(1L, 10, SyntheticFeeds.Shape.SMALL), new Date());
+
+        feedStore.fail(true);
+        Map<String, PubResult> failed = publisher.publishFeed(queueDefinition, SyntheticFeeds.stagingPosts(1L, 2, SyntheticFeeds.Shape.SMALL), new Date());
+        assertFalse(failed.get(JSONPublisher.JSON_PUBLISHER_ID).getErrors().isEmpty());
+        feedStore.fail(false);
+
+        publisher.publishFeed(queueDefinition, SyntheticFeeds.stagingPosts(1L, 2, SyntheticFeeds.Shape.SMALL), new Date());
+        for (int pageNumber = 2; pageNumber <= 5; pageNumber++) {
+            assertPage(pageNumber, 0, false);
+        }
+    }
+
+    private CompletableFuture<Map<String, PubResult>> publish(int postCount) {
+        return publisher.publishFeedAsync(queueDefinition, SyntheticFeeds.stagingPosts(1L, postCount, SyntheticFeeds.Shape.SMALL), new Date());
+    }
+
+    private static void assertPublished(CompletableFuture<Map<String, PubResult>> future) throws Exception {
+        PubResult pubResult = future.get(10L, SECONDS).get(JSONPublisher.JSON_PUBLISHER_ID);
+        assertTrue(pubResult.getErrors().isEmpty(), () -> "Unexpected errors: " + pubResult.getErrors());
+    }
+
+    private void assertPage(int pageNumber, int postCount, boolean hasNext) {
+        String document = feedStore.get(pageIdent(pageNumber));
+        assertNotNull(document, () -> "Missing page " + pageNumber);
+        JsonObject page = JsonParser.parseString(document).getAsJsonObject();
+        assertEquals(pageNumber, page.get("page").getAsInt());
+        assertEquals(postCount, page.getAsJsonArray("posts").size(), () -> "Posts on page " + pageNumber);
+        assertEquals(hasNext, page.has("next"), () -> "Link from page " + pageNumber);
+    }
+
+    private String pageIdent(int pageNumber) {
+        return transportIdent + "/page/" + pageNumber;
+    }
+
+    private static JSONPublisher newPublisher(FeedStore feedStore) {
+        JSONPublisherConfigProps configProps = TestPublishers.configProps();
+        configProps.setPageSize(PAGE_SIZE);
+        configProps.setDigestCacheMaxSize(100);
+        JSONPublisher publisher = TestPublishers.publisher(configProps);
+        publisher.feedStore = feedStore;
+        publisher.feedCompressor = new FeedCompressor(configProps.getCompressionLevel());
+        publisher.feedDeltas = new FeedDeltas(0, 0);
+        publisher.writeBehindQueue = new WriteBehindQueue(16, 1, publisher.publisherMetrics);
+        return publisher;
+    }
+
+    //
+    // keeps the latest document per transport ident; while held, writes block until the store is opened, and while
+    // failing, writes throw
+    //
+    private static final class GatedFeedStore implements FeedStore {
+
+        private final Map<String, String> documents = new ConcurrentHashMap<>(16);
+
+        private final Map<String, Integer> writeCounts = new ConcurrentHashMap<>(16);
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        private final CountDownLatch held = new CountDownLatch(1);
+
+        private volatile boolean failing;
+
+        @Override
+        public void putFeed(String transportIdent, String document) {
+            held.countDown();
+            try {
+                assertTrue(gate.await(10L, SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (failing) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            documents.put(transportIdent, document);
+            writeCounts.merge(transportIdent, 1, Integer::sum);
+        }
+
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void awaitHeld() throws InterruptedException {
+            assertTrue(held.await(10L, SECONDS));
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        void fail(boolean failing) {
+            this.failing = failing;
+        }
+
+        String get(String transportIdent) {
+            return documents.get(transportIdent);
+        }
+
+        int getWriteCount(String transportIdent) {
+            return writeCounts.getOrDefault(transportIdent, 0);
+        }
+    }
+}